@@ -0,0 +1,150 @@
+package com.fitness.activity_service.client.user;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decorates {@link UserServiceClientImpl} with a bounded, TTL-based cache of validation results.
+ * Concurrent lookups for the same keycloakId share a single in-flight call to user-service.
+ *
+ * <p>Negative results get their own (shorter) TTL because {@link UserServiceClientImpl} maps
+ * transport errors to {@code false}, and we do not want a brief user-service outage to lock users
+ * out for the full positive TTL.
+ */
+@Component
+@Primary
+@Slf4j
+public class CachingUserServiceClient implements UserServiceClient {
+
+  private final UserServiceClient delegate;
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final Map<String, CachedResult> cache;
+  private final Map<String, Mono<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+
+  public CachingUserServiceClient(
+      UserServiceClientImpl delegate,
+      MeterRegistry meterRegistry,
+      @Value("${user-validation.cache.max-size:10000}") int maxSize,
+      @Value("${user-validation.cache.ttl:5m}") Duration ttl,
+      @Value("${user-validation.cache.negative-ttl:10s}") Duration negativeTtl) {
+    this.delegate = delegate;
+    this.ttlNanos = ttl.toNanos();
+    this.negativeTtlNanos = negativeTtl.toNanos();
+    // Access-ordered LinkedHashMap gives us LRU eviction once maxSize is reached
+    this.cache =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+            return size() > maxSize;
+          }
+        };
+
+    FunctionCounter.builder("user.validation.cache.hits", hits, AtomicLong::get)
+        .register(meterRegistry);
+    FunctionCounter.builder("user.validation.cache.misses", misses, AtomicLong::get)
+        .register(meterRegistry);
+    FunctionCounter.builder("user.validation.cache.coalesced", coalesced, AtomicLong::get)
+        .register(meterRegistry);
+    Gauge.builder("user.validation.cache.size", this, CachingUserServiceClient::size)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Mono<Boolean> validateUser(String keycloakId) {
+    Boolean cached = lookup(keycloakId);
+    if (cached != null) {
+      hits.incrementAndGet();
+      return Mono.just(cached);
+    }
+
+    AtomicBoolean created = new AtomicBoolean(false);
+    Mono<Boolean> shared =
+        inFlight.computeIfAbsent(
+            keycloakId,
+            id -> {
+              created.set(true);
+              return load(id);
+            });
+
+    if (created.get()) {
+      misses.incrementAndGet();
+    } else {
+      coalesced.incrementAndGet();
+      log.debug("Coalesced user validation for keycloakId={}", keycloakId);
+    }
+    return shared;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  public int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  public void evict(String keycloakId) {
+    synchronized (cache) {
+      cache.remove(keycloakId);
+    }
+  }
+
+  private Mono<Boolean> load(String keycloakId) {
+    return delegate
+        .validateUser(keycloakId)
+        .defaultIfEmpty(false)
+        .doOnNext(valid -> store(keycloakId, valid))
+        .doFinally(signal -> inFlight.remove(keycloakId))
+        .cache();
+  }
+
+  private Boolean lookup(String keycloakId) {
+    synchronized (cache) {
+      CachedResult result = cache.get(keycloakId);
+      if (result == null) {
+        return null;
+      }
+      if (result.expiresAtNanos() - System.nanoTime() <= 0) {
+        cache.remove(keycloakId);
+        return null;
+      }
+      return result.valid();
+    }
+  }
+
+  private void store(String keycloakId, boolean valid) {
+    long expiresAt = System.nanoTime() + (valid ? ttlNanos : negativeTtlNanos);
+    synchronized (cache) {
+      cache.put(keycloakId, new CachedResult(valid, expiresAt));
+    }
+  }
+
+  private record CachedResult(boolean valid, long expiresAtNanos) {}
+}
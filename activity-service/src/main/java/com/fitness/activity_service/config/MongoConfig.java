@@ -1,10 +1,21 @@
 package com.fitness.activity_service.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
 
 // Configuration class to enable MongoDB auditing features like automatic population of createdAt
 // and updatedAt fields
 @Configuration
 @EnableMongoAuditing
-public class MongoConfig {}
+public class MongoConfig {
+
+  // Activities and their outbox messages are written in one transaction, which requires MongoDB to
+  // run as a replica set (a single-node replica set is enough for local development)
+  @Bean
+  public MongoTransactionManager transactionManager(MongoDatabaseFactory mongoDatabaseFactory) {
+    return new MongoTransactionManager(mongoDatabaseFactory);
+  }
+}
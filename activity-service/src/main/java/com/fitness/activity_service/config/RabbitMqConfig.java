@@ -3,8 +3,8 @@ package com.fitness.activity_service.config;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.core.Queue;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -22,6 +22,15 @@ public class RabbitMqConfig {
   @Value("${rabbitmq.routing.key}")
   private String routingKey;
 
+  @Value("${rabbitmq.bulk-queue.name:activity.bulk.queue}")
+  private String bulkQueue;
+
+  @Value("${rabbitmq.bulk-routing.key:activity.tracking.bulk}")
+  private String bulkRoutingKey;
+
+  @Value("${rabbitmq.message-format:json}")
+  private String messageFormat;
+
   @Bean
   public Queue activityQueue() {
     return new Queue(queue, true);
@@ -37,8 +46,23 @@ public class RabbitMqConfig {
     return BindingBuilder.bind(activityQueue).to(activityExchange).with(routingKey);
   }
 
+  // Batch imports; declared here too so that they are not dropped before ai-service has started
+  @Bean
+  public Queue bulkActivityQueue() {
+    return new Queue(bulkQueue, true);
+  }
+
+  @Bean
+  public Binding bulkActivityBinding(Queue bulkActivityQueue, DirectExchange activityExchange) {
+    return BindingBuilder.bind(bulkActivityQueue).to(activityExchange).with(bulkRoutingKey);
+  }
+
+  // Reads both JSON and CBOR; writes the format configured by rabbitmq.message-format
   @Bean
-  public MessageConverter jsonMessageConverter() {
-    return new Jackson2JsonMessageConverter();
+  public MessageConverter activityMessageConverter() {
+    return new VersionedMessageConverter(
+        "cbor".equalsIgnoreCase(messageFormat)
+            ? CborMessageConverter.CONTENT_TYPE
+            : MessageProperties.CONTENT_TYPE_JSON);
   }
 }
@@ -0,0 +1,33 @@
+package com.fitness.activity_service.config;
+
+import com.fitness.activity_service.repository.ActivityStorageLayout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+// The reactive transaction manager is not registered as a bean so that @Transactional keeps
+// resolving to the blocking MongoTransactionManager; reactive code uses this operator instead
+@Configuration
+@Profile("reactive")
+public class ReactiveMongoConfig {
+
+  // The reactive repositories only read and write the one-document-per-activity layout
+  public ReactiveMongoConfig(
+      @Value("${activity.storage.layout:document}") ActivityStorageLayout layout) {
+    if (layout != ActivityStorageLayout.DOCUMENT) {
+      throw new IllegalStateException(
+          "activity.storage.layout=" + layout + " is not supported with the reactive profile");
+    }
+  }
+
+  @Bean
+  public TransactionalOperator reactiveTransactionalOperator(
+      ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory) {
+    return TransactionalOperator.create(
+        new ReactiveMongoTransactionManager(reactiveMongoDatabaseFactory));
+  }
+}
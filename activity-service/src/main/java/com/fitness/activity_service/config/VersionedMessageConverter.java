@@ -0,0 +1,48 @@
+package com.fitness.activity_service.config;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * Stamps outgoing activity messages with a schema version and the content type of the configured
+ * wire format (JSON or CBOR), and decodes incoming messages by their content type. Because every
+ * service can read both formats, producers and consumers can switch format independently: roll out
+ * consumers first, then flip {@code rabbitmq.message-format} on the producer.
+ */
+public class VersionedMessageConverter implements MessageConverter {
+  public static final String SCHEMA_VERSION_HEADER = "x-schema-version";
+  public static final int SCHEMA_VERSION = 1;
+
+  private final ContentTypeDelegatingMessageConverter delegate;
+  private final String producerContentType;
+
+  public VersionedMessageConverter(String producerContentType) {
+    this.producerContentType = producerContentType;
+    Jackson2JsonMessageConverter jsonMessageConverter = new Jackson2JsonMessageConverter();
+    this.delegate = new ContentTypeDelegatingMessageConverter(jsonMessageConverter);
+    this.delegate.addDelegate(MessageProperties.CONTENT_TYPE_JSON, jsonMessageConverter);
+    this.delegate.addDelegate(CborMessageConverter.CONTENT_TYPE, new CborMessageConverter());
+  }
+
+  @Override
+  public Message toMessage(Object object, MessageProperties messageProperties)
+      throws MessageConversionException {
+    messageProperties.setContentType(producerContentType);
+    messageProperties.setHeader(SCHEMA_VERSION_HEADER, SCHEMA_VERSION);
+    return delegate.toMessage(object, messageProperties);
+  }
+
+  @Override
+  public Object fromMessage(Message message) throws MessageConversionException {
+    Object version = message.getMessageProperties().getHeader(SCHEMA_VERSION_HEADER);
+    if (version instanceof Number number && number.intValue() > SCHEMA_VERSION) {
+      throw new MessageConversionException(
+          "Unsupported activity message schema version " + version);
+    }
+    return delegate.fromMessage(message);
+  }
+}
@@ -1,14 +1,26 @@
 package com.fitness.activity_service.controller;
 
+import com.fitness.activity_service.dto.ActivityPageResponse;
 import com.fitness.activity_service.dto.ActivityRequest;
 import com.fitness.activity_service.dto.ActivityResponse;
+import com.fitness.activity_service.dto.ActivityStatsResponse;
+import com.fitness.activity_service.dto.BatchActivityResponse;
+import com.fitness.activity_service.dto.SampleRangeResponse;
+import com.fitness.activity_service.model.RollupGranularity;
 import com.fitness.activity_service.service.ActivityService;
+import java.time.LocalDate;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/activities")
 @AllArgsConstructor
 public class ActivityController {
@@ -26,9 +38,55 @@ public class ActivityController {
     return ResponseEntity.ok(activityService.trackActivity(activityRequest));
   }
 
+  @PostMapping("/track/batch")
+  public ResponseEntity<BatchActivityResponse> trackActivities(
+      @RequestBody List<ActivityRequest> activityRequests) {
+    if (activityRequests.size() > activityService.getMaxBatchSize()) {
+      return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+    }
+    return ResponseEntity.ok(activityService.trackActivities(activityRequests));
+  }
+
   @GetMapping("/getUserActivities")
   public ResponseEntity<List<ActivityResponse>> getUserActivities(
       @RequestHeader("X-Keycloak-Id") String keycloakId) {
     return ResponseEntity.ok(activityService.getActivitiesByKeycloakId(keycloakId));
   }
+
+  @GetMapping("/getUserActivities/page")
+  public ResponseEntity<ActivityPageResponse> getUserActivitiesPage(
+      @RequestHeader("X-Keycloak-Id") String keycloakId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int size) {
+    return ResponseEntity.ok(activityService.getActivityPage(keycloakId, cursor, size));
+  }
+
+  @GetMapping(value = "/getUserActivities/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamUserActivities(
+      @RequestHeader("X-Keycloak-Id") String keycloakId) {
+    if (!activityService.isValidUser(keycloakId)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    StreamingResponseBody body =
+        outputStream -> activityService.streamActivities(keycloakId, outputStream);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  @GetMapping("/stats")
+  public ResponseEntity<ActivityStatsResponse> getUserStats(
+      @RequestHeader("X-Keycloak-Id") String keycloakId,
+      @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    return ResponseEntity.ok(activityService.getStats(keycloakId, granularity, from, to));
+  }
+
+  @GetMapping("/{activityId}/samples/{metric}")
+  public ResponseEntity<SampleRangeResponse> getSamples(
+      @PathVariable String activityId,
+      @PathVariable String metric,
+      @RequestParam(defaultValue = "0") long from,
+      @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to) {
+    return ResponseEntity.ok(activityService.getSamples(activityId, metric, from, to));
+  }
 }
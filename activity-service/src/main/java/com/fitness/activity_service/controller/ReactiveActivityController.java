@@ -0,0 +1,98 @@
+package com.fitness.activity_service.controller;
+
+import com.fitness.activity_service.dto.ActivityPageResponse;
+import com.fitness.activity_service.dto.ActivityRequest;
+import com.fitness.activity_service.dto.ActivityResponse;
+import com.fitness.activity_service.dto.ActivityStatsResponse;
+import com.fitness.activity_service.dto.SampleRangeResponse;
+import com.fitness.activity_service.model.RollupGranularity;
+import com.fitness.activity_service.service.ReactiveActivityService;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// WebFlux variant of ActivityController, served on the same paths when the reactive profile is on
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/activities")
+@AllArgsConstructor
+public class ReactiveActivityController {
+
+  private final ReactiveActivityService activityService;
+
+  @GetMapping("/{activityId}")
+  public Mono<ResponseEntity<ActivityResponse>> getActivity(@PathVariable String activityId) {
+    return activityService
+        .getActivityById(activityId)
+        .map(ResponseEntity::ok)
+        .defaultIfEmpty(ResponseEntity.ok().build());
+  }
+
+  @PostMapping("/track")
+  public Mono<ResponseEntity<ActivityResponse>> trackActivity(
+      @RequestBody ActivityRequest activityRequest) {
+    return activityService
+        .trackActivity(activityRequest)
+        .map(ResponseEntity::ok)
+        .defaultIfEmpty(ResponseEntity.ok().build());
+  }
+
+  @GetMapping("/getUserActivities")
+  public Flux<ActivityResponse> getUserActivities(
+      @RequestHeader("X-Keycloak-Id") String keycloakId) {
+    return activityService.getActivitiesByKeycloakId(keycloakId);
+  }
+
+  @GetMapping("/getUserActivities/page")
+  public Mono<ResponseEntity<ActivityPageResponse>> getUserActivitiesPage(
+      @RequestHeader("X-Keycloak-Id") String keycloakId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int size) {
+    return activityService
+        .getActivityPage(keycloakId, cursor, size)
+        .map(ResponseEntity::ok)
+        .defaultIfEmpty(ResponseEntity.ok().build());
+  }
+
+  @GetMapping(value = "/getUserActivities/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Mono<ResponseEntity<Flux<ActivityResponse>>> streamUserActivities(
+      @RequestHeader("X-Keycloak-Id") String keycloakId) {
+    return activityService
+        .validateUser(keycloakId)
+        .map(
+            valid ->
+                valid
+                    ? ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(activityService.streamActivities(keycloakId))
+                    : ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+  }
+
+  @GetMapping("/stats")
+  public Mono<ResponseEntity<ActivityStatsResponse>> getUserStats(
+      @RequestHeader("X-Keycloak-Id") String keycloakId,
+      @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    return activityService
+        .getStats(keycloakId, granularity, from, to)
+        .map(ResponseEntity::ok)
+        .defaultIfEmpty(ResponseEntity.ok().build());
+  }
+
+  @GetMapping("/{activityId}/samples/{metric}")
+  public Mono<SampleRangeResponse> getSamples(
+      @PathVariable String activityId,
+      @PathVariable String metric,
+      @RequestParam(defaultValue = "0") long from,
+      @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to) {
+    return activityService.getSamples(activityId, metric, from, to);
+  }
+}
@@ -0,0 +1,17 @@
+package com.fitness.activity_service.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityPageResponse {
+  private List<ActivityResponse> items;
+  // Opaque cursor for the next page; null when there are no more activities
+  private String nextCursor;
+}
@@ -1,6 +1,7 @@
 package com.fitness.activity_service.dto;
 
 import com.fitness.activity_service.model.ActivityType;
+import com.fitness.activity_service.model.SampleSeries;
 import java.time.LocalDateTime;
 import java.util.Map;
 import lombok.AllArgsConstructor;
@@ -19,4 +20,6 @@ public class ActivityRequest {
   private Integer caloriesBurned;
   private LocalDateTime startTime;
   private Map<String, Object> additionalMetrics;
+  // High-frequency sensor data (heart rate, GPS, ...), keyed by metric name
+  private Map<String, SampleSeries> sampleSeries;
 }
@@ -1,6 +1,7 @@
 package com.fitness.activity_service.dto;
 
 import com.fitness.activity_service.model.ActivityType;
+import com.fitness.activity_service.model.SampleSeriesSummary;
 import java.time.LocalDateTime;
 import java.util.Map;
 import lombok.AllArgsConstructor;
@@ -20,6 +21,7 @@ public class ActivityResponse {
   private Integer caloriesBurned;
   private LocalDateTime startTime;
   private Map<String, Object> additionalMetrics;
+  private Map<String, SampleSeriesSummary> sampleSummaries;
   private LocalDateTime createdAt;
   private LocalDateTime updatedAt;
 }
@@ -0,0 +1,22 @@
+package com.fitness.activity_service.dto;
+
+import com.fitness.activity_service.model.ActivityType;
+import com.fitness.activity_service.model.RollupTotals;
+import java.time.LocalDate;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityStatsBucket {
+  private LocalDate bucketStart;
+  private long sessions;
+  private long totalDuration;
+  private long totalCaloriesBurned;
+  private Map<ActivityType, RollupTotals> byType;
+}
@@ -0,0 +1,22 @@
+package com.fitness.activity_service.dto;
+
+import com.fitness.activity_service.model.RollupGranularity;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityStatsResponse {
+  private String keycloakId;
+  private RollupGranularity granularity;
+  private LocalDate from;
+  private LocalDate to;
+  // Only buckets containing at least one activity are returned
+  private List<ActivityStatsBucket> buckets;
+}
@@ -0,0 +1,18 @@
+package com.fitness.activity_service.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchActivityResponse {
+  private int created;
+  private int rejected;
+  private int failed;
+  private List<BatchItemResult> results;
+}
@@ -0,0 +1,7 @@
+package com.fitness.activity_service.dto;
+
+public enum BatchItemStatus {
+  CREATED,
+  REJECTED,
+  FAILED
+}
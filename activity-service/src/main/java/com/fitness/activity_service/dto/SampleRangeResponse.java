@@ -0,0 +1,17 @@
+package com.fitness.activity_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SampleRangeResponse {
+  private String activityId;
+  private String metric;
+  private long[] offsetsMillis;
+  private double[] values;
+}
@@ -1,5 +1,6 @@
 package com.fitness.activity_service.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 import java.util.Map;
 import lombok.AllArgsConstructor;
@@ -9,10 +10,13 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 @Document(collection = "activities")
+@CompoundIndex(name = "keycloak_start_idx", def = "{'keycloakId': 1, 'startTime': -1, '_id': -1}")
 @Data
 @Builder
 @AllArgsConstructor
@@ -28,6 +32,13 @@ public class Activity {
   @Field("metrics")
   private Map<String, Object> additionalMetrics;
 
+  // Per-metric summaries of the sample series; the samples themselves live in activity_samples
+  @Field("samples")
+  private Map<String, SampleSeriesSummary> sampleSummaries;
+
+  // Raw series from the request, only held until the chunks are written
+  @Transient @JsonIgnore private Map<String, SampleSeries> sampleSeries;
+
   @CreatedDate private LocalDateTime createdAt;
   @LastModifiedDate private LocalDateTime updatedAt;
 }
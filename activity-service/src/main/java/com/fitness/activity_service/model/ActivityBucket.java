@@ -0,0 +1,31 @@
+package com.fitness.activity_service.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// One user's activities for one calendar month (period = yyyyMM, 0 for activities without a
+// startTime), used by the bucketed storage layout. A period spills over into further buckets once
+// count reaches activity.storage.bucket-max-activities.
+@Document(collection = "activity_buckets")
+@CompoundIndexes({
+  @CompoundIndex(name = "keycloak_period_idx", def = "{'keycloakId': 1, 'period': -1}"),
+  @CompoundIndex(name = "activity_id_idx", def = "{'activities._id': 1}")
+})
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityBucket {
+  @Id private String id;
+  private String keycloakId;
+  private int period;
+  private int count;
+  private List<Activity> activities;
+}
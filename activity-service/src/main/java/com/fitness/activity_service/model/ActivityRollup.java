@@ -0,0 +1,34 @@
+package com.fitness.activity_service.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Pre-aggregated totals for one user and one day/week/month bucket, maintained incrementally with
+// $inc upserts whenever activities are saved. The id is "<keycloakId>|<granularity>|<bucketStart>".
+@Document(collection = "activity_rollups")
+@CompoundIndex(
+    name = "keycloak_granularity_bucket_idx",
+    def = "{'keycloakId': 1, 'granularity': 1, 'bucketStart': 1}")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityRollup {
+  @Id private String id;
+  private String keycloakId;
+  private RollupGranularity granularity;
+  private LocalDate bucketStart;
+  private long sessions;
+  private long totalDuration;
+  private long totalCaloriesBurned;
+  private Map<ActivityType, RollupTotals> byType;
+  private LocalDateTime updatedAt;
+}
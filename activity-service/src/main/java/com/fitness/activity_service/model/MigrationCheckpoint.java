@@ -0,0 +1,25 @@
+package com.fitness.activity_service.model;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Progress of a resumable data migration, written in the same transaction as each migrated batch
+@Document(collection = "migration_checkpoints")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MigrationCheckpoint {
+  @Id private String id;
+  private String lastId;
+  // Last id the migration covers, for migrations of a collection that keeps growing meanwhile
+  private String upToId;
+  private long migrated;
+  private LocalDateTime updatedAt;
+  private LocalDateTime completedAt;
+}
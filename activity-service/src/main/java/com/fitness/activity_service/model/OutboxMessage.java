@@ -0,0 +1,34 @@
+package com.fitness.activity_service.model;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// An activity event waiting to be published to RabbitMQ. Written in the same Mongo transaction as
+// the activity itself and deleted by OutboxPublisher once the broker has confirmed it. While a
+// publisher holds a claim on it, nextAttemptAt is the end of that claim's lease.
+@Document(collection = "activity_outbox")
+@CompoundIndex(name = "next_attempt_idx", def = "{'nextAttemptAt': 1, 'createdAt': 1}")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxMessage {
+  @Id private String id;
+  private String activityId;
+  private String exchange;
+  private String routingKey;
+  private Activity payload;
+  private int attempts;
+  private LocalDateTime nextAttemptAt;
+  private String lastError;
+  private String claimId;
+
+  @CreatedDate private LocalDateTime createdAt;
+}
@@ -0,0 +1,7 @@
+package com.fitness.activity_service.model;
+
+public enum RollupGranularity {
+  DAY,
+  WEEK,
+  MONTH
+}
@@ -0,0 +1,16 @@
+package com.fitness.activity_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RollupTotals {
+  private long sessions;
+  private long duration;
+  private long caloriesBurned;
+}
@@ -0,0 +1,33 @@
+package com.fitness.activity_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// A fixed-size slice of one sample series, kept out of the activity document. Offsets and values
+// are delta + zigzag varint encoded by SampleSeriesCodec into plain byte arrays (BSON binary).
+@Document(collection = "activity_samples")
+@CompoundIndex(
+    name = "activity_metric_offset_idx",
+    def = "{'activityId': 1, 'metric': 1, 'startOffsetMillis': 1}")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SampleChunk {
+  @Id private String id;
+  private String activityId;
+  private String keycloakId;
+  private String metric;
+  private int chunkIndex;
+  private long startOffsetMillis;
+  private long endOffsetMillis;
+  private int count;
+  private int precision;
+  private byte[] offsets;
+  private byte[] values;
+}
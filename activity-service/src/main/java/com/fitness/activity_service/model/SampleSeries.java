@@ -0,0 +1,18 @@
+package com.fitness.activity_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A raw sensor series as uploaded by a device: parallel arrays of sample offsets (milliseconds
+// since the activity start) and values. Values are stored with the given number of decimal digits.
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SampleSeries {
+  private long[] offsetsMillis;
+  private double[] values;
+  private Integer precision;
+}
@@ -0,0 +1,20 @@
+package com.fitness.activity_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SampleSeriesSummary {
+  private int count;
+  private double min;
+  private double max;
+  private double mean;
+  private long startOffsetMillis;
+  private long endOffsetMillis;
+  private int chunks;
+}
@@ -0,0 +1,46 @@
+package com.fitness.activity_service.repository;
+
+import java.time.LocalDateTime;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+// History queries shared by the blocking and reactive repositories, both served by the
+// keycloak_start_idx compound index on Activity
+final class ActivityQueries {
+  private static final Sort NEWEST_FIRST =
+      Sort.by(Sort.Order.desc("startTime"), Sort.Order.desc("id"));
+
+  private ActivityQueries() {}
+
+  static Query page(String keycloakId, LocalDateTime afterStartTime, String afterId, int limit) {
+    Criteria criteria = Criteria.where("keycloakId").is(keycloakId);
+    if (afterId != null) {
+      criteria = criteria.andOperator(after(afterStartTime, afterId));
+    }
+    return Query.query(criteria).with(NEWEST_FIRST).limit(limit);
+  }
+
+  static Query history(String keycloakId, int cursorBatchSize) {
+    return Query.query(Criteria.where("keycloakId").is(keycloakId))
+        .with(NEWEST_FIRST)
+        .cursorBatchSize(cursorBatchSize);
+  }
+
+  // Activities without a startTime sort last in descending order, so they follow every dated one
+  private static Criteria after(LocalDateTime afterStartTime, String afterId) {
+    if (afterStartTime == null) {
+      return new Criteria().andOperator(Criteria.where("startTime").is(null), idBefore(afterId));
+    }
+    return new Criteria()
+        .orOperator(
+            Criteria.where("startTime").lt(afterStartTime),
+            new Criteria()
+                .andOperator(Criteria.where("startTime").is(afterStartTime), idBefore(afterId)),
+            Criteria.where("startTime").is(null));
+  }
+
+  private static Criteria idBefore(String afterId) {
+    return Criteria.where("id").lt(afterId);
+  }
+}
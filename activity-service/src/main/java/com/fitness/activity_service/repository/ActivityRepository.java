@@ -1,11 +1,10 @@
 package com.fitness.activity_service.repository;
 
 import com.fitness.activity_service.model.Activity;
-import java.util.List;
-import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.repository.Repository;
 
-@Repository
-public interface ActivityRepository extends MongoRepository<Activity, String> {
-  List<Activity> findByKeycloakId(String userId);
-}
+// Every method comes from ActivityRepositoryCustomImpl so that it follows activity.storage.layout.
+// This deliberately does not extend MongoRepository: its findAll, count, delete and friends would
+// read and write the activities collection directly and miss bucketed activities.
+public interface ActivityRepository
+    extends Repository<Activity, String>, ActivityRepositoryCustom {}
@@ -0,0 +1,21 @@
+package com.fitness.activity_service.repository;
+
+import com.fitness.activity_service.model.Activity;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ActivityRepositoryCustom extends ActivityStorageOperations<Activity, String> {
+
+  List<Activity> findByKeycloakId(String keycloakId);
+
+  /**
+   * Returns up to {@code limit} activities for the user, newest first, strictly after the given
+   * (startTime, id) position. Pass a null {@code afterId} for the first page.
+   */
+  List<Activity> findPageByKeycloakId(
+      String keycloakId, LocalDateTime afterStartTime, String afterId, int limit);
+
+  /** Streams every activity for the user, newest first, from a Mongo cursor. Must be closed. */
+  Stream<Activity> streamByKeycloakId(String keycloakId);
+}
@@ -0,0 +1,82 @@
+package com.fitness.activity_service.repository;
+
+import com.fitness.activity_service.model.Activity;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+public class ActivityRepositoryCustomImpl implements ActivityRepositoryCustom {
+  private final MongoTemplate mongoTemplate;
+  private final BucketedActivityStore buckets;
+  private final int cursorBatchSize;
+
+  public ActivityRepositoryCustomImpl(
+      MongoTemplate mongoTemplate,
+      @Value("${activity.storage.layout:document}") ActivityStorageLayout layout,
+      @Value("${activity.storage.bucket-max-activities:200}") int bucketMaxActivities,
+      @Value("${activity.history.cursor-batch-size:500}") int cursorBatchSize) {
+    this.mongoTemplate = mongoTemplate;
+    this.cursorBatchSize = cursorBatchSize;
+    this.buckets =
+        layout == ActivityStorageLayout.BUCKETED
+            ? new BucketedActivityStore(mongoTemplate, bucketMaxActivities, cursorBatchSize)
+            : null;
+  }
+
+  @Override
+  public <S extends Activity> S save(S activity) {
+    return buckets != null ? buckets.save(activity) : mongoTemplate.save(activity);
+  }
+
+  @Override
+  public <S extends Activity> List<S> insert(Iterable<S> activities) {
+    List<S> list = new ArrayList<>();
+    activities.forEach(list::add);
+    if (buckets != null) {
+      return buckets.insert(list);
+    }
+    return new ArrayList<>(mongoTemplate.insertAll(list));
+  }
+
+  @Override
+  public Optional<Activity> findById(String id) {
+    if (buckets != null) {
+      return buckets.findById(id);
+    }
+    return Optional.ofNullable(mongoTemplate.findById(id, Activity.class));
+  }
+
+  @Override
+  public List<Activity> findByKeycloakId(String keycloakId) {
+    if (buckets != null) {
+      return buckets.findByKeycloakId(keycloakId);
+    }
+    return mongoTemplate.find(
+        Query.query(Criteria.where("keycloakId").is(keycloakId)), Activity.class);
+  }
+
+  @Override
+  public List<Activity> findPageByKeycloakId(
+      String keycloakId, LocalDateTime afterStartTime, String afterId, int limit) {
+    if (buckets != null) {
+      return buckets.findPage(keycloakId, afterStartTime, afterId, limit);
+    }
+    return mongoTemplate.find(
+        ActivityQueries.page(keycloakId, afterStartTime, afterId, limit), Activity.class);
+  }
+
+  @Override
+  public Stream<Activity> streamByKeycloakId(String keycloakId) {
+    if (buckets != null) {
+      return buckets.stream(keycloakId);
+    }
+    return mongoTemplate.stream(
+        ActivityQueries.history(keycloakId, cursorBatchSize), Activity.class);
+  }
+}
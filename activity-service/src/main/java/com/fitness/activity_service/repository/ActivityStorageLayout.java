@@ -0,0 +1,14 @@
+package com.fitness.activity_service.repository;
+
+/**
+ * How {@link ActivityRepository} stores activities, selected by {@code activity.storage.layout}.
+ */
+public enum ActivityStorageLayout {
+  /** One document per activity in the {@code activities} collection. */
+  DOCUMENT,
+  /**
+   * Activities embedded in per-user, per-month documents in the {@code activity_buckets}
+   * collection.
+   */
+  BUCKETED
+}
@@ -0,0 +1,18 @@
+package com.fitness.activity_service.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The CRUD methods that {@link ActivityRepositoryCustomImpl} implements per {@link
+ * ActivityStorageLayout}. They keep the generic signatures of {@code MongoRepository}, so callers
+ * read the same as with any other Spring Data repository.
+ */
+public interface ActivityStorageOperations<T, ID> {
+
+  <S extends T> S save(S entity);
+
+  <S extends T> List<S> insert(Iterable<S> entities);
+
+  Optional<T> findById(ID id);
+}
@@ -0,0 +1,216 @@
+package com.fitness.activity_service.repository;
+
+import com.fitness.activity_service.model.Activity;
+import com.fitness.activity_service.model.ActivityBucket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+// Bucketed storage layout: each user's activities are embedded in one document per calendar month,
+// so a history or range read fetches a handful of documents through keycloak_period_idx instead of
+// one random document per activity. Activities inside a period are ordered in memory.
+final class BucketedActivityStore {
+  private static final int UNDATED_PERIOD = 0;
+
+  // Same order as ActivityQueries: startTime desc with undated activities last, then id desc
+  private static final Comparator<Activity> NEWEST_FIRST =
+      Comparator.comparing(
+              Activity::getStartTime,
+              Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+          .thenComparing(Activity::getId)
+          .reversed();
+
+  private final MongoTemplate mongoTemplate;
+  private final int maxActivitiesPerBucket;
+  private final int cursorBatchSize;
+
+  BucketedActivityStore(
+      MongoTemplate mongoTemplate, int maxActivitiesPerBucket, int cursorBatchSize) {
+    this.mongoTemplate = mongoTemplate;
+    this.maxActivitiesPerBucket = maxActivitiesPerBucket;
+    this.cursorBatchSize = cursorBatchSize;
+  }
+
+  static int periodOf(LocalDateTime startTime) {
+    return startTime == null
+        ? UNDATED_PERIOD
+        : startTime.getYear() * 100 + startTime.getMonthValue();
+  }
+
+  <S extends Activity> S save(S activity) {
+    if (activity.getId() != null) {
+      // An update may move the activity to another period, so take it out of its bucket first
+      mongoTemplate.updateFirst(
+          Query.query(Criteria.where("activities._id").is(storedId(activity.getId()))),
+          new Update()
+              .pull("activities", new Document("_id", storedId(activity.getId())))
+              .inc("count", -1),
+          ActivityBucket.class);
+      activity.setUpdatedAt(LocalDateTime.now());
+    }
+    insert(List.of(activity));
+    return activity;
+  }
+
+  <S extends Activity> List<S> insert(List<S> activities) {
+    if (activities.isEmpty()) {
+      return activities;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    Map<BucketKey, List<Activity>> byBucket = new LinkedHashMap<>();
+    for (Activity activity : activities) {
+      // Auditing callbacks only run for top-level documents, so stamp embedded activities here
+      if (activity.getId() == null) {
+        activity.setId(new ObjectId().toHexString());
+      }
+      if (activity.getCreatedAt() == null) {
+        activity.setCreatedAt(now);
+      }
+      if (activity.getUpdatedAt() == null) {
+        activity.setUpdatedAt(now);
+      }
+      byBucket
+          .computeIfAbsent(
+              new BucketKey(activity.getKeycloakId(), periodOf(activity.getStartTime())),
+              key -> new ArrayList<>())
+          .add(activity);
+    }
+
+    // The count filter makes a full bucket stop matching, so the upsert opens a new one. A bulk
+    // push can overshoot the limit once; it only bounds document growth, it is not a hard cap.
+    BulkOperations bulk =
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, ActivityBucket.class);
+    byBucket.forEach(
+        (key, group) ->
+            bulk.upsert(
+                Query.query(
+                    Criteria.where("keycloakId")
+                        .is(key.keycloakId())
+                        .and("period")
+                        .is(key.period())
+                        .and("count")
+                        .lt(maxActivitiesPerBucket)),
+                new Update().push("activities").each(group.toArray()).inc("count", group.size())));
+    bulk.execute();
+    return activities;
+  }
+
+  Optional<Activity> findById(String id) {
+    Query query = Query.query(Criteria.where("activities._id").is(storedId(id)));
+    query.fields().position("activities", 1);
+    return Optional.ofNullable(mongoTemplate.findOne(query, ActivityBucket.class))
+        .map(ActivityBucket::getActivities)
+        .filter(activities -> !activities.isEmpty())
+        .map(activities -> activities.get(0));
+  }
+
+  List<Activity> findByKeycloakId(String keycloakId) {
+    try (Stream<Activity> activities = stream(keycloakId)) {
+      return activities.collect(Collectors.toList());
+    }
+  }
+
+  List<Activity> findPage(
+      String keycloakId, LocalDateTime afterStartTime, String afterId, int limit) {
+    Criteria criteria = Criteria.where("keycloakId").is(keycloakId);
+    if (afterId == null) {
+      try (Stream<Activity> activities = newestFirst(criteria)) {
+        return activities.limit(limit).toList();
+      }
+    }
+
+    // Periods before the cursor's one cannot hold anything newer, so they are never fetched
+    Activity cursor = Activity.builder().id(afterId).startTime(afterStartTime).build();
+    criteria = criteria.and("period").lte(periodOf(afterStartTime));
+    try (Stream<Activity> activities = newestFirst(criteria)) {
+      return activities
+          .filter(activity -> NEWEST_FIRST.compare(activity, cursor) > 0)
+          .limit(limit)
+          .toList();
+    }
+  }
+
+  Stream<Activity> stream(String keycloakId) {
+    return newestFirst(Criteria.where("keycloakId").is(keycloakId));
+  }
+
+  private Stream<Activity> newestFirst(Criteria criteria) {
+    Query query =
+        Query.query(criteria)
+            .with(Sort.by(Sort.Direction.DESC, "period"))
+            .cursorBatchSize(cursorBatchSize);
+    Stream<ActivityBucket> buckets = mongoTemplate.stream(query, ActivityBucket.class);
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                new PeriodIterator(buckets.iterator()), Spliterator.ORDERED),
+            false)
+        .flatMap(List::stream)
+        .onClose(buckets::close);
+  }
+
+  // Activity ids are ObjectId hex strings, stored as ObjectIds inside buckets as well
+  private static Object storedId(String id) {
+    return ObjectId.isValid(id) ? new ObjectId(id) : id;
+  }
+
+  private record BucketKey(String keycloakId, int period) {}
+
+  // Merges consecutive buckets of the same period (a spilled-over period has several) and yields
+  // each period's activities sorted newest first
+  private static final class PeriodIterator implements Iterator<List<Activity>> {
+    private final Iterator<ActivityBucket> buckets;
+    private ActivityBucket pending;
+
+    private PeriodIterator(Iterator<ActivityBucket> buckets) {
+      this.buckets = buckets;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return pending != null || buckets.hasNext();
+    }
+
+    @Override
+    public List<Activity> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ActivityBucket first = pending != null ? pending : buckets.next();
+      pending = null;
+      List<Activity> activities = new ArrayList<>(activitiesOf(first));
+      while (buckets.hasNext()) {
+        ActivityBucket bucket = buckets.next();
+        if (bucket.getPeriod() != first.getPeriod()) {
+          pending = bucket;
+          break;
+        }
+        activities.addAll(activitiesOf(bucket));
+      }
+      activities.sort(NEWEST_FIRST);
+      return activities;
+    }
+
+    private static List<Activity> activitiesOf(ActivityBucket bucket) {
+      return bucket.getActivities() != null ? bucket.getActivities() : List.of();
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package com.fitness.activity_service.repository;
+
+import com.fitness.activity_service.model.OutboxMessage;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxMessageRepository extends MongoRepository<OutboxMessage, String> {}
@@ -0,0 +1,12 @@
+package com.fitness.activity_service.repository;
+
+import com.fitness.activity_service.model.Activity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveActivityRepository
+    extends ReactiveMongoRepository<Activity, String>, ReactiveActivityRepositoryCustom {
+  Flux<Activity> findByKeycloakId(String keycloakId);
+}
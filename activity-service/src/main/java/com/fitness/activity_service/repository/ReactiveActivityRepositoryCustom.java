@@ -0,0 +1,14 @@
+package com.fitness.activity_service.repository;
+
+import com.fitness.activity_service.model.Activity;
+import java.time.LocalDateTime;
+import reactor.core.publisher.Flux;
+
+// Reactive counterpart of ActivityRepositoryCustom
+public interface ReactiveActivityRepositoryCustom {
+
+  Flux<Activity> findPageByKeycloakId(
+      String keycloakId, LocalDateTime afterStartTime, String afterId, int limit);
+
+  Flux<Activity> streamByKeycloakId(String keycloakId);
+}
@@ -0,0 +1,29 @@
+package com.fitness.activity_service.repository;
+
+import com.fitness.activity_service.model.Activity;
+import java.time.LocalDateTime;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+@RequiredArgsConstructor
+public class ReactiveActivityRepositoryCustomImpl implements ReactiveActivityRepositoryCustom {
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  @Value("${activity.history.cursor-batch-size:500}")
+  private int cursorBatchSize;
+
+  @Override
+  public Flux<Activity> findPageByKeycloakId(
+      String keycloakId, LocalDateTime afterStartTime, String afterId, int limit) {
+    return reactiveMongoTemplate.find(
+        ActivityQueries.page(keycloakId, afterStartTime, afterId, limit), Activity.class);
+  }
+
+  @Override
+  public Flux<Activity> streamByKeycloakId(String keycloakId) {
+    return reactiveMongoTemplate.find(
+        ActivityQueries.history(keycloakId, cursorBatchSize), Activity.class);
+  }
+}
@@ -0,0 +1,9 @@
+package com.fitness.activity_service.repository;
+
+import com.fitness.activity_service.model.OutboxMessage;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveOutboxMessageRepository
+    extends ReactiveMongoRepository<OutboxMessage, String> {}
@@ -0,0 +1,107 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.model.Activity;
+import com.fitness.activity_service.model.MigrationCheckpoint;
+import com.fitness.activity_service.repository.ActivityRepository;
+import com.fitness.activity_service.repository.ActivityStorageLayout;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Copies the one-document-per-activity {@code activities} collection into {@code activity_buckets}
+ * in _id order. Each batch is written in the same transaction as the checkpoint, so an interrupted
+ * run resumes where it stopped without duplicating activities. The source collection is left in
+ * place.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "activity.storage.migration.enabled", havingValue = "true")
+public class ActivityBucketMigration implements ApplicationRunner {
+  private static final String CHECKPOINT_ID = "activities-to-buckets";
+
+  private final MongoTemplate mongoTemplate;
+  private final ActivityRepository activityRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ActivityStorageLayout layout;
+  private final int batchSize;
+
+  public ActivityBucketMigration(
+      MongoTemplate mongoTemplate,
+      ActivityRepository activityRepository,
+      TransactionTemplate transactionTemplate,
+      @Value("${activity.storage.layout:document}") ActivityStorageLayout layout,
+      @Value("${activity.storage.migration.batch-size:500}") int batchSize) {
+    this.mongoTemplate = mongoTemplate;
+    this.activityRepository = activityRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.layout = layout;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    // The repository only writes buckets in the bucketed layout
+    if (layout != ActivityStorageLayout.BUCKETED) {
+      throw new IllegalStateException(
+          "activity.storage.migration.enabled requires activity.storage.layout=bucketed");
+    }
+
+    MigrationCheckpoint checkpoint =
+        mongoTemplate.findById(CHECKPOINT_ID, MigrationCheckpoint.class);
+    if (checkpoint == null) {
+      checkpoint = MigrationCheckpoint.builder().id(CHECKPOINT_ID).build();
+    } else if (checkpoint.getCompletedAt() != null) {
+      log.info("Bucket migration already completed at {}", checkpoint.getCompletedAt());
+      return;
+    }
+    log.info(
+        "Starting bucket migration after lastId={} migrated={}",
+        checkpoint.getLastId(),
+        checkpoint.getMigrated());
+
+    while (true) {
+      List<Activity> batch = nextBatch(checkpoint.getLastId());
+      if (batch.isEmpty()) {
+        break;
+      }
+      MigrationCheckpoint current = checkpoint;
+      current.setLastId(batch.get(batch.size() - 1).getId());
+      current.setMigrated(current.getMigrated() + batch.size());
+      current.setUpdatedAt(LocalDateTime.now());
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            activityRepository.insert(batch);
+            mongoTemplate.save(current);
+          });
+      log.info(
+          "Bucket migration progress lastId={} migrated={}",
+          current.getLastId(),
+          current.getMigrated());
+    }
+
+    checkpoint.setCompletedAt(LocalDateTime.now());
+    mongoTemplate.save(checkpoint);
+    log.info(
+        "Bucket migration completed, migrated={}. The activities collection can be dropped once"
+            + " the buckets are verified",
+        checkpoint.getMigrated());
+  }
+
+  // Reads the source collection directly, since the repository itself now points at the buckets
+  private List<Activity> nextBatch(String lastId) {
+    Criteria criteria = lastId == null ? new Criteria() : Criteria.where("id").gt(lastId);
+    Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "id")).limit(batchSize);
+    return mongoTemplate.find(query, Activity.class);
+  }
+}
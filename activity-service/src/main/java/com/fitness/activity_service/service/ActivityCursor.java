@@ -0,0 +1,44 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.model.Activity;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Keyset position of the last activity on a history page, encoded as an opaque URL-safe string. A
+ * null {@code startTime} is valid and refers to activities tracked without one. A cursor that does
+ * not decode is rejected with 400 Bad Request.
+ */
+public record ActivityCursor(LocalDateTime startTime, String id) {
+
+  public static ActivityCursor of(Activity activity) {
+    return new ActivityCursor(activity.getStartTime(), activity.getId());
+  }
+
+  public static ActivityCursor decode(String cursor) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = decoded.lastIndexOf('|');
+      if (separator < 0) {
+        throw new IllegalArgumentException("Missing separator");
+      }
+      String startTime = decoded.substring(0, separator);
+      return new ActivityCursor(
+          startTime.isEmpty() ? null : LocalDateTime.parse(startTime),
+          decoded.substring(separator + 1));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed activity cursor", e);
+    }
+  }
+
+  public String encode() {
+    String value = (startTime != null ? startTime.toString() : "") + "|" + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
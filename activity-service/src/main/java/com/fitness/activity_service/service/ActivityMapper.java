@@ -0,0 +1,38 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.dto.ActivityRequest;
+import com.fitness.activity_service.dto.ActivityResponse;
+import com.fitness.activity_service.model.Activity;
+
+// Shared by the servlet and reactive services so both modes produce identical documents and DTOs
+public final class ActivityMapper {
+
+  private ActivityMapper() {}
+
+  public static Activity toActivity(ActivityRequest activityRequest) {
+    return Activity.builder()
+        .keycloakId(activityRequest.getKeycloakId())
+        .type(activityRequest.getActivityType())
+        .duration(activityRequest.getDuration())
+        .caloriesBurned(activityRequest.getCaloriesBurned())
+        .startTime(activityRequest.getStartTime())
+        .additionalMetrics(activityRequest.getAdditionalMetrics())
+        .sampleSeries(activityRequest.getSampleSeries())
+        .build();
+  }
+
+  public static ActivityResponse toActivityResponse(Activity activity) {
+    return ActivityResponse.builder()
+        .id(activity.getId())
+        .keycloakId(activity.getKeycloakId())
+        .type(activity.getType())
+        .duration(activity.getDuration())
+        .caloriesBurned(activity.getCaloriesBurned())
+        .startTime(activity.getStartTime())
+        .additionalMetrics(activity.getAdditionalMetrics())
+        .sampleSummaries(activity.getSampleSummaries())
+        .createdAt(activity.getCreatedAt())
+        .updatedAt(activity.getUpdatedAt())
+        .build();
+  }
+}
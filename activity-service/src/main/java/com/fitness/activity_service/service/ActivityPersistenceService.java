@@ -0,0 +1,104 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.model.Activity;
+import com.fitness.activity_service.model.OutboxMessage;
+import com.fitness.activity_service.repository.ActivityRepository;
+import com.fitness.activity_service.repository.OutboxMessageRepository;
+import com.mongodb.MongoException;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActivityPersistenceService {
+  // Concurrent writes to the same rollup bucket can abort a transaction with a write conflict,
+  // which MongoDB labels as transient and safe to retry as a whole
+  private static final int MAX_TRANSACTION_ATTEMPTS = 3;
+
+  private final ActivityRepository activityRepository;
+  private final OutboxMessageRepository outboxMessageRepository;
+  private final OutboxMessageFactory outboxMessageFactory;
+  private final ActivityRollupService activityRollupService;
+  private final SampleSeriesService sampleSeriesService;
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Saves the activity, its outbox message, its rollup increments and its sample chunks atomically.
+   * Publishing to RabbitMQ happens later in {@link OutboxPublisher}, so the caller only waits for
+   * the Mongo write. The caller validates the sample series first, with {@link
+   * SampleSeriesService#summarize(Activity)}.
+   */
+  public Activity save(Activity activity) {
+    Activity savedActivity =
+        inTransaction(
+            () -> {
+              Activity saved = activityRepository.save(activity);
+              outboxMessageRepository.save(outboxMessageFactory.create(saved));
+              activityRollupService.apply(List.of(saved));
+              sampleSeriesService.saveChunks(List.of(saved));
+              return saved;
+            });
+    log.info("Activity and outbox message saved for activityId={}", savedActivity.getId());
+    return savedActivity;
+  }
+
+  /**
+   * Bulk variant of {@link #save(Activity)}: the activities and their outbox messages are each
+   * written with a single insertMany, and the rollups with a single bulk write, in one transaction.
+   */
+  public List<Activity> saveAll(List<Activity> activities) {
+    return saveAll(activities, outboxMessageFactory::create);
+  }
+
+  /**
+   * Like {@link #saveAll(List)}, for imports and backfills: their events go to ai-service's bulk
+   * lane, so a large import does not delay recommendations for other users' new activities.
+   */
+  public List<Activity> importAll(List<Activity> activities) {
+    return saveAll(activities, outboxMessageFactory::createBulk);
+  }
+
+  private List<Activity> saveAll(
+      List<Activity> activities, Function<Activity, OutboxMessage> outboxMessage) {
+    List<Activity> savedActivities =
+        inTransaction(
+            () -> {
+              List<Activity> saved = activityRepository.insert(activities);
+              outboxMessageRepository.insert(saved.stream().map(outboxMessage).toList());
+              activityRollupService.apply(saved);
+              sampleSeriesService.saveChunks(saved);
+              return saved;
+            });
+    log.info("{} activities and outbox messages saved in bulk", savedActivities.size());
+    return savedActivities;
+  }
+
+  private <T> T inTransaction(Supplier<T> work) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return transactionTemplate.execute(status -> work.get());
+      } catch (RuntimeException e) {
+        if (attempt >= MAX_TRANSACTION_ATTEMPTS || !isTransient(e)) {
+          throw e;
+        }
+        log.warn("Retrying transient transaction failure, attempt={}", attempt);
+      }
+    }
+  }
+
+  public static boolean isTransient(Throwable throwable) {
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+      if (cause instanceof MongoException mongoException
+          && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
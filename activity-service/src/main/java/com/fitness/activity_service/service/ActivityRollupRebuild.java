@@ -0,0 +1,133 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.model.Activity;
+import com.fitness.activity_service.model.ActivityRollup;
+import com.fitness.activity_service.model.MigrationCheckpoint;
+import com.fitness.activity_service.repository.ActivityStorageLayout;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Rebuilds {@code activity_rollups} from the {@code activities} collection, for activities tracked
+ * before rollups existed or rollups that drifted. The rollups are cleared and the last activity id
+ * is recorded in one transaction; activities up to that id are then replayed in _id order, each
+ * batch in the same transaction as the checkpoint, so an interrupted run resumes where it stopped.
+ * Activities tracked later are counted by the regular incremental updates, but one saved while the
+ * rollups are cleared can be counted twice, so start it while no activities are being tracked.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "activity.rollups.rebuild.enabled", havingValue = "true")
+public class ActivityRollupRebuild implements ApplicationRunner {
+  private static final String CHECKPOINT_ID = "activity-rollups-rebuild";
+
+  private final MongoTemplate mongoTemplate;
+  private final ActivityRollupService activityRollupService;
+  private final TransactionTemplate transactionTemplate;
+  private final ActivityStorageLayout layout;
+  private final int batchSize;
+
+  public ActivityRollupRebuild(
+      MongoTemplate mongoTemplate,
+      ActivityRollupService activityRollupService,
+      TransactionTemplate transactionTemplate,
+      @Value("${activity.storage.layout:document}") ActivityStorageLayout layout,
+      @Value("${activity.rollups.rebuild.batch-size:500}") int batchSize) {
+    this.mongoTemplate = mongoTemplate;
+    this.activityRollupService = activityRollupService;
+    this.transactionTemplate = transactionTemplate;
+    this.layout = layout;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    // In the bucketed layout new activities are not written to the activities collection
+    if (layout != ActivityStorageLayout.DOCUMENT) {
+      throw new IllegalStateException(
+          "activity.rollups.rebuild.enabled requires activity.storage.layout=document");
+    }
+
+    MigrationCheckpoint checkpoint =
+        mongoTemplate.findById(CHECKPOINT_ID, MigrationCheckpoint.class);
+    if (checkpoint == null) {
+      checkpoint = start();
+    } else if (checkpoint.getCompletedAt() != null) {
+      log.info("Rollup rebuild already completed at {}", checkpoint.getCompletedAt());
+      return;
+    }
+    log.info(
+        "Rebuilding rollups after lastId={} upToId={} rebuilt={}",
+        checkpoint.getLastId(),
+        checkpoint.getUpToId(),
+        checkpoint.getMigrated());
+
+    while (checkpoint.getUpToId() != null) {
+      List<Activity> batch = nextBatch(checkpoint.getLastId(), checkpoint.getUpToId());
+      if (batch.isEmpty()) {
+        break;
+      }
+      MigrationCheckpoint current = checkpoint;
+      current.setLastId(batch.get(batch.size() - 1).getId());
+      current.setMigrated(current.getMigrated() + batch.size());
+      current.setUpdatedAt(LocalDateTime.now());
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            activityRollupService.apply(batch);
+            mongoTemplate.save(current);
+          });
+      log.info(
+          "Rollup rebuild progress lastId={} rebuilt={}",
+          current.getLastId(),
+          current.getMigrated());
+    }
+
+    checkpoint.setCompletedAt(LocalDateTime.now());
+    mongoTemplate.save(checkpoint);
+    log.info("Rollup rebuild completed, rebuilt={}", checkpoint.getMigrated());
+  }
+
+  // Clearing and recording the checkpoint together, so a crash in between cannot leave cleared
+  // rollups behind without a rebuild that resumes
+  private MigrationCheckpoint start() {
+    return transactionTemplate.execute(
+        status -> {
+          Activity last =
+              mongoTemplate.findOne(
+                  new Query().with(Sort.by(Sort.Direction.DESC, "id")).limit(1), Activity.class);
+          MigrationCheckpoint checkpoint =
+              MigrationCheckpoint.builder()
+                  .id(CHECKPOINT_ID)
+                  .upToId(last != null ? last.getId() : null)
+                  .updatedAt(LocalDateTime.now())
+                  .build();
+          long removed = mongoTemplate.remove(new Query(), ActivityRollup.class).getDeletedCount();
+          mongoTemplate.save(checkpoint);
+          log.info(
+              "Cleared {} rollups, rebuilding up to activity id={}",
+              removed,
+              checkpoint.getUpToId());
+          return checkpoint;
+        });
+  }
+
+  private List<Activity> nextBatch(String lastId, String upToId) {
+    Criteria criteria =
+        lastId == null
+            ? Criteria.where("id").lte(upToId)
+            : Criteria.where("id").gt(lastId).lte(upToId);
+    Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "id")).limit(batchSize);
+    return mongoTemplate.find(query, Activity.class);
+  }
+}
@@ -0,0 +1,127 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.model.Activity;
+import com.fitness.activity_service.model.ActivityRollup;
+import com.fitness.activity_service.model.RollupGranularity;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Maintains per-user day/week/month rollups incrementally. Each saved activity becomes one $inc
+ * upsert per granularity, applied in the same transaction as the activity, so stats reads cost
+ * O(buckets) instead of O(activities).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActivityRollupService {
+  private final MongoTemplate mongoTemplate;
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public void apply(List<Activity> activities) {
+    // An empty bulk write is rejected by the driver
+    if (activities.isEmpty()) {
+      return;
+    }
+    BulkOperations bulkOperations =
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityRollup.class);
+    for (Activity activity : activities) {
+      for (RollupUpsert upsert : upsertsFor(activity)) {
+        bulkOperations.upsert(upsert.query(), upsert.update());
+      }
+    }
+    bulkOperations.execute();
+  }
+
+  public Mono<Void> applyReactive(Activity activity) {
+    return Flux.fromIterable(upsertsFor(activity))
+        .concatMap(
+            upsert ->
+                reactiveMongoTemplate.upsert(upsert.query(), upsert.update(), ActivityRollup.class))
+        .then();
+  }
+
+  public List<ActivityRollup> getRollups(
+      String keycloakId, RollupGranularity granularity, LocalDate from, LocalDate to) {
+    return mongoTemplate.find(rangeQuery(keycloakId, granularity, from, to), ActivityRollup.class);
+  }
+
+  public Flux<ActivityRollup> getRollupsReactive(
+      String keycloakId, RollupGranularity granularity, LocalDate from, LocalDate to) {
+    return reactiveMongoTemplate.find(
+        rangeQuery(keycloakId, granularity, from, to), ActivityRollup.class);
+  }
+
+  public static LocalDate bucketStart(LocalDate date, RollupGranularity granularity) {
+    return switch (granularity) {
+      case DAY -> date;
+      case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+      case MONTH -> date.withDayOfMonth(1);
+    };
+  }
+
+  private Query rangeQuery(
+      String keycloakId, RollupGranularity granularity, LocalDate from, LocalDate to) {
+    return Query.query(
+            Criteria.where("keycloakId")
+                .is(keycloakId)
+                .and("granularity")
+                .is(granularity)
+                .and("bucketStart")
+                .gte(bucketStart(from, granularity))
+                .lte(bucketStart(to, granularity)))
+        .with(Sort.by("bucketStart"));
+  }
+
+  private List<RollupUpsert> upsertsFor(Activity activity) {
+    LocalDateTime timestamp =
+        activity.getStartTime() != null
+            ? activity.getStartTime()
+            : activity.getCreatedAt() != null ? activity.getCreatedAt() : LocalDateTime.now();
+    long duration = activity.getDuration() != null ? activity.getDuration() : 0;
+    long calories = activity.getCaloriesBurned() != null ? activity.getCaloriesBurned() : 0;
+
+    List<RollupUpsert> upserts = new ArrayList<>(RollupGranularity.values().length);
+    for (RollupGranularity granularity : RollupGranularity.values()) {
+      LocalDate bucketStart = bucketStart(timestamp.toLocalDate(), granularity);
+      String id = activity.getKeycloakId() + "|" + granularity + "|" + bucketStart;
+
+      Update update =
+          new Update()
+              .setOnInsert("keycloakId", activity.getKeycloakId())
+              .setOnInsert("granularity", granularity)
+              .setOnInsert("bucketStart", bucketStart)
+              .inc("sessions", 1)
+              .inc("totalDuration", duration)
+              .inc("totalCaloriesBurned", calories)
+              .currentDate("updatedAt");
+      if (activity.getType() != null) {
+        String typePath = "byType." + activity.getType().name();
+        update
+            .inc(typePath + ".sessions", 1)
+            .inc(typePath + ".duration", duration)
+            .inc(typePath + ".caloriesBurned", calories);
+      }
+      upserts.add(new RollupUpsert(Query.query(Criteria.where("id").is(id)), update));
+    }
+    return upserts;
+  }
+
+  private record RollupUpsert(Query query, Update update) {}
+}
@@ -1,17 +1,36 @@
 package com.fitness.activity_service.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fitness.activity_service.client.user.UserServiceClient;
+import com.fitness.activity_service.dto.ActivityPageResponse;
 import com.fitness.activity_service.dto.ActivityRequest;
 import com.fitness.activity_service.dto.ActivityResponse;
+import com.fitness.activity_service.dto.ActivityStatsResponse;
+import com.fitness.activity_service.dto.BatchActivityResponse;
+import com.fitness.activity_service.dto.BatchItemResult;
+import com.fitness.activity_service.dto.BatchItemStatus;
+import com.fitness.activity_service.dto.SampleRangeResponse;
 import com.fitness.activity_service.model.Activity;
+import com.fitness.activity_service.model.ActivityRollup;
+import com.fitness.activity_service.model.RollupGranularity;
 import com.fitness.activity_service.repository.ActivityRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 
 @Slf4j
 @Service
@@ -20,16 +39,28 @@ public class ActivityService {
   private final ActivityRepository activityRepository;
   private final UserServiceClient
       userServiceClient; // use interface rather than adapter impl - adapter called auto by Spring
-  private final RabbitTemplate rabbitTemplate;
+  private final ActivityPersistenceService activityPersistenceService;
+  private final ActivityWriteCoalescer activityWriteCoalescer;
+  private final ObjectMapper objectMapper;
+  private final ActivityRollupService activityRollupService;
+  private final SampleSeriesService sampleSeriesService;
 
-  @Value("${rabbitmq.exchange.name}")
-  private String exchange;
+  private static final int STREAM_FLUSH_INTERVAL = 100;
 
-  @Value("${rabbitmq.routing.key}")
-  private String routingKey;
+  @Value("${activity.history.max-page-size:200}")
+  private int maxPageSize;
+
+  @Value("${activity.batch.max-size:500}")
+  private int maxBatchSize;
+
+  @Value("${activity.batch.user-validation-concurrency:8}")
+  private int userValidationConcurrency;
 
   public ActivityResponse trackActivity(ActivityRequest activityRequest) {
     log.info("trackActivity called for user with keycloakId={}", activityRequest.getKeycloakId());
+    // Invalid sample series are the client's error; reject them before anything else is done
+    Activity activity = ActivityMapper.toActivity(activityRequest);
+    sampleSeriesService.summarize(activity);
     try {
       Boolean userExists = userServiceClient.validateUser(activityRequest.getKeycloakId()).block();
       if (userExists == null || !userExists) {
@@ -39,27 +70,11 @@ public class ActivityService {
       }
       log.info("User validated successfully for keycloakId={}", activityRequest.getKeycloakId());
 
-      Activity activity =
-          Activity.builder()
-              .keycloakId(activityRequest.getKeycloakId())
-              .type(activityRequest.getActivityType())
-              .duration(activityRequest.getDuration())
-              .caloriesBurned(activityRequest.getCaloriesBurned())
-              .startTime(activityRequest.getStartTime())
-              .additionalMetrics(activityRequest.getAdditionalMetrics())
-              .build();
-      Activity savedActivity = activityRepository.save(activity);
+      // the outbox publisher takes care of getting the activity to RabbitMQ for AI processing
+      Activity savedActivity = activityWriteCoalescer.save(activity);
       log.info("Activity saved successfully with activityId={}", savedActivity.getId());
 
-      // publish to RabbitMQ for AI Processing
-      try {
-        rabbitTemplate.convertAndSend(exchange, routingKey, savedActivity);
-        log.info("Published activity to RabbitMQ for activityId={}", savedActivity.getId());
-      } catch (Exception e) {
-        log.error(
-            "Failed to publish activity to RabbitMQ for activityId={}", savedActivity.getId(), e);
-      }
-      return mapToActivityResponse(savedActivity);
+      return ActivityMapper.toActivityResponse(savedActivity);
     } catch (Exception e) {
       log.error(
           "Error occurred while tracking activity for user with keycloakId={}",
@@ -69,6 +84,96 @@ public class ActivityService {
     }
   }
 
+  public BatchActivityResponse trackActivities(List<ActivityRequest> activityRequests) {
+    log.info("trackActivities called with {} activities", activityRequests.size());
+
+    // validate every distinct user once, concurrently, instead of once per activity
+    Set<String> keycloakIds =
+        activityRequests.stream()
+            .map(ActivityRequest::getKeycloakId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+    Map<String, Boolean> validUsers =
+        Flux.fromIterable(keycloakIds)
+            .flatMap(
+                keycloakId ->
+                    userServiceClient
+                        .validateUser(keycloakId)
+                        .defaultIfEmpty(false)
+                        .map(valid -> Map.entry(keycloakId, valid)),
+                userValidationConcurrency)
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+            .block();
+
+    BatchItemResult[] results = new BatchItemResult[activityRequests.size()];
+    List<Integer> acceptedIndexes = new ArrayList<>();
+    List<Activity> acceptedActivities = new ArrayList<>();
+    for (int i = 0; i < activityRequests.size(); i++) {
+      ActivityRequest activityRequest = activityRequests.get(i);
+      String keycloakId = activityRequest.getKeycloakId();
+      if (keycloakId == null || validUsers == null || !validUsers.getOrDefault(keycloakId, false)) {
+        log.warn("User validation failed for batch item={} with keycloakId={}", i, keycloakId);
+        results[i] = rejected(i, "User validation failed for keycloakId=" + keycloakId);
+        continue;
+      }
+      // A bad series only rejects its own item instead of failing the whole batch
+      Activity activity = ActivityMapper.toActivity(activityRequest);
+      try {
+        sampleSeriesService.summarize(activity);
+      } catch (ResponseStatusException e) {
+        log.warn("Rejected batch item={}: {}", i, e.getReason());
+        results[i] = rejected(i, e.getReason());
+        continue;
+      }
+      acceptedIndexes.add(i);
+      acceptedActivities.add(activity);
+    }
+
+    if (!acceptedActivities.isEmpty()) {
+      try {
+        List<Activity> savedActivities = activityPersistenceService.importAll(acceptedActivities);
+        for (int i = 0; i < savedActivities.size(); i++) {
+          int index = acceptedIndexes.get(i);
+          results[index] =
+              BatchItemResult.builder()
+                  .index(index)
+                  .status(BatchItemStatus.CREATED)
+                  .activity(ActivityMapper.toActivityResponse(savedActivities.get(i)))
+                  .build();
+        }
+      } catch (Exception e) {
+        log.error("Failed to save batch of {} activities", acceptedActivities.size(), e);
+        for (int index : acceptedIndexes) {
+          results[index] =
+              BatchItemResult.builder()
+                  .index(index)
+                  .status(BatchItemStatus.FAILED)
+                  .error("Failed to save activity: " + e.getMessage())
+                  .build();
+        }
+      }
+    }
+
+    List<BatchItemResult> resultList = List.of(results);
+    BatchActivityResponse response =
+        BatchActivityResponse.builder()
+            .created(countByStatus(resultList, BatchItemStatus.CREATED))
+            .rejected(countByStatus(resultList, BatchItemStatus.REJECTED))
+            .failed(countByStatus(resultList, BatchItemStatus.FAILED))
+            .results(resultList)
+            .build();
+    log.info(
+        "Batch tracked: created={}, rejected={}, failed={}",
+        response.getCreated(),
+        response.getRejected(),
+        response.getFailed());
+    return response;
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
   public ActivityResponse getActivityById(String activityId) {
     log.info("getActivityById called for activityId={}", activityId);
     try {
@@ -78,7 +183,7 @@ public class ActivityService {
         return null;
       }
       log.info("Activity found successfully for activityId={}", activityId);
-      return mapToActivityResponse(activity);
+      return ActivityMapper.toActivityResponse(activity);
     } catch (Exception e) {
       log.error("Database error while fetching activity for activityId={}", activityId, e);
       throw e;
@@ -102,24 +207,116 @@ public class ActivityService {
       }
 
       log.info("Found {} activities for user with keycloakId={}", activities.size(), keycloakId);
-      return activities.stream().map(this::mapToActivityResponse).collect(Collectors.toList());
+      return activities.stream()
+          .map(ActivityMapper::toActivityResponse)
+          .collect(Collectors.toList());
     } catch (Exception e) {
       log.error("System error while getting activities for user with keycloakId={}", keycloakId, e);
       throw e;
     }
   }
 
-  private ActivityResponse mapToActivityResponse(Activity activity) {
-    return ActivityResponse.builder()
-        .id(activity.getId())
-        .keycloakId(activity.getKeycloakId())
-        .type(activity.getType())
-        .duration(activity.getDuration())
-        .caloriesBurned(activity.getCaloriesBurned())
-        .startTime(activity.getStartTime())
-        .additionalMetrics(activity.getAdditionalMetrics())
-        .createdAt(activity.getCreatedAt())
-        .updatedAt(activity.getUpdatedAt())
+  public ActivityPageResponse getActivityPage(String keycloakId, String cursor, int size) {
+    log.info("getActivityPage called for keycloakId={} with cursor={}", keycloakId, cursor);
+    // A bad cursor is the client's error, so decode it before the system-error handling below
+    ActivityCursor after =
+        cursor != null && !cursor.isBlank() ? ActivityCursor.decode(cursor) : null;
+    try {
+      if (!isValidUser(keycloakId)) {
+        log.warn("User validation failed for user with keycloakId={}", keycloakId);
+        return null;
+      }
+
+      int pageSize = Math.max(1, Math.min(size, maxPageSize));
+
+      // fetch one extra document to learn whether another page exists
+      List<Activity> activities =
+          activityRepository.findPageByKeycloakId(
+              keycloakId,
+              after != null ? after.startTime() : null,
+              after != null ? after.id() : null,
+              pageSize + 1);
+      boolean hasMore = activities.size() > pageSize;
+      List<Activity> page = hasMore ? activities.subList(0, pageSize) : activities;
+
+      return ActivityPageResponse.builder()
+          .items(page.stream().map(ActivityMapper::toActivityResponse).toList())
+          .nextCursor(hasMore ? ActivityCursor.of(page.get(page.size() - 1)).encode() : null)
+          .build();
+    } catch (Exception e) {
+      log.error("System error while paging activities for user with keycloakId={}", keycloakId, e);
+      throw e;
+    }
+  }
+
+  public ActivityStatsResponse getStats(
+      String keycloakId, RollupGranularity granularity, LocalDate from, LocalDate to) {
+    log.info("getStats called for keycloakId={} granularity={}", keycloakId, granularity);
+    try {
+      if (!isValidUser(keycloakId)) {
+        log.warn("User validation failed for user with keycloakId={}", keycloakId);
+        return null;
+      }
+      LocalDate rangeEnd = to != null ? to : LocalDate.now();
+      LocalDate rangeStart =
+          from != null ? from : ActivityStatsMapper.defaultFrom(granularity, rangeEnd);
+      List<ActivityRollup> rollups =
+          activityRollupService.getRollups(keycloakId, granularity, rangeStart, rangeEnd);
+      return ActivityStatsMapper.toStatsResponse(
+          keycloakId, granularity, rangeStart, rangeEnd, rollups);
+    } catch (Exception e) {
+      log.error("System error while getting stats for user with keycloakId={}", keycloakId, e);
+      throw e;
+    }
+  }
+
+  public SampleRangeResponse getSamples(
+      String activityId, String metric, long fromOffsetMillis, long toOffsetMillis) {
+    log.info("getSamples called for activityId={} metric={}", activityId, metric);
+    try {
+      return sampleSeriesService.getSamples(activityId, metric, fromOffsetMillis, toOffsetMillis);
+    } catch (Exception e) {
+      log.error("Database error while fetching samples for activityId={}", activityId, e);
+      throw e;
+    }
+  }
+
+  public boolean isValidUser(String keycloakId) {
+    Boolean userExists = userServiceClient.validateUser(keycloakId).block();
+    return userExists != null && userExists;
+  }
+
+  /**
+   * Writes the user's activities as newline-delimited JSON straight from a Mongo cursor, so memory
+   * use does not grow with the size of the history.
+   */
+  public void streamActivities(String keycloakId, OutputStream outputStream) throws IOException {
+    log.info("streamActivities called for keycloakId={}", keycloakId);
+    int count = 0;
+    try (Stream<Activity> activities = activityRepository.streamByKeycloakId(keycloakId)) {
+      Iterator<Activity> iterator = activities.iterator();
+      while (iterator.hasNext()) {
+        outputStream.write(
+            objectMapper.writeValueAsBytes(ActivityMapper.toActivityResponse(iterator.next())));
+        outputStream.write('\n');
+        if (++count % STREAM_FLUSH_INTERVAL == 0) {
+          outputStream.flush();
+        }
+      }
+    }
+    outputStream.flush();
+    log.info("Streamed {} activities for keycloakId={}", count, keycloakId);
+  }
+
+  private BatchItemResult rejected(int index, String error) {
+    return BatchItemResult.builder()
+        .index(index)
+        .status(BatchItemStatus.REJECTED)
+        .error(error)
         .build();
   }
+
+  private int countByStatus(List<BatchItemResult> results, BatchItemStatus status) {
+    return (int) results.stream().filter(result -> result.getStatus() == status).count();
+  }
 }
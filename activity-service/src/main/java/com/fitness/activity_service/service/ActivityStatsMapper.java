@@ -0,0 +1,48 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.dto.ActivityStatsBucket;
+import com.fitness.activity_service.dto.ActivityStatsResponse;
+import com.fitness.activity_service.model.ActivityRollup;
+import com.fitness.activity_service.model.RollupGranularity;
+import java.time.LocalDate;
+import java.util.List;
+
+public final class ActivityStatsMapper {
+
+  private ActivityStatsMapper() {}
+
+  // Default window when the client does not pass "from": 30 days, 12 weeks or 12 months
+  public static LocalDate defaultFrom(RollupGranularity granularity, LocalDate to) {
+    return switch (granularity) {
+      case DAY -> to.minusDays(29);
+      case WEEK -> to.minusWeeks(11);
+      case MONTH -> to.minusMonths(11);
+    };
+  }
+
+  public static ActivityStatsResponse toStatsResponse(
+      String keycloakId,
+      RollupGranularity granularity,
+      LocalDate from,
+      LocalDate to,
+      List<ActivityRollup> rollups) {
+    return ActivityStatsResponse.builder()
+        .keycloakId(keycloakId)
+        .granularity(granularity)
+        .from(from)
+        .to(to)
+        .buckets(
+            rollups.stream()
+                .map(
+                    rollup ->
+                        ActivityStatsBucket.builder()
+                            .bucketStart(rollup.getBucketStart())
+                            .sessions(rollup.getSessions())
+                            .totalDuration(rollup.getTotalDuration())
+                            .totalCaloriesBurned(rollup.getTotalCaloriesBurned())
+                            .byType(rollup.getByType())
+                            .build())
+                .toList())
+        .build();
+  }
+}
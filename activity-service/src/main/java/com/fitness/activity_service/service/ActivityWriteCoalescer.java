@@ -0,0 +1,195 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.model.Activity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Group commit for single-activity saves. Concurrent {@link #save(Activity)} calls are queued and
+ * written by a few writer threads, each of which collects up to {@code max-batch-size} activities
+ * or waits at most {@code max-delay} after the first one, then writes the whole batch with {@link
+ * ActivityPersistenceService#saveAll(List)} in one transaction. While a batch is being written the
+ * next one fills up, so batches grow with load and stay at one activity when the service is idle.
+ *
+ * <p>If a batch write fails, its activities are retried one by one so that a single bad activity
+ * only fails its own caller.
+ */
+@Slf4j
+@Component
+public class ActivityWriteCoalescer implements SmartLifecycle {
+  private static final Duration IDLE_POLL = Duration.ofMillis(100);
+
+  private final ActivityPersistenceService activityPersistenceService;
+  private final boolean enabled;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final int writers;
+  private final BlockingQueue<PendingWrite> queue;
+  private final DistributionSummary batchSizes;
+  private final Counter fallbacks;
+  private final List<Thread> writerThreads = new ArrayList<>();
+
+  private volatile boolean running;
+
+  public ActivityWriteCoalescer(
+      ActivityPersistenceService activityPersistenceService,
+      MeterRegistry meterRegistry,
+      @Value("${activity.write-coalescing.enabled:false}") boolean enabled,
+      @Value("${activity.write-coalescing.max-batch-size:64}") int maxBatchSize,
+      @Value("${activity.write-coalescing.max-delay:2ms}") Duration maxDelay,
+      @Value("${activity.write-coalescing.writers:4}") int writers,
+      @Value("${activity.write-coalescing.queue-capacity:10000}") int queueCapacity) {
+    this.activityPersistenceService = activityPersistenceService;
+    this.enabled = enabled;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.writers = writers;
+    this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    this.batchSizes =
+        DistributionSummary.builder("activity.write.coalescer.batch.size").register(meterRegistry);
+    this.fallbacks = Counter.builder("activity.write.coalescer.fallbacks").register(meterRegistry);
+  }
+
+  /**
+   * Saves the activity as part of the next batch and returns it with its generated id. Behaves like
+   * {@link ActivityPersistenceService#save(Activity)} when coalescing is disabled or stopped.
+   */
+  public Activity save(Activity activity) {
+    if (!running) {
+      return activityPersistenceService.save(activity);
+    }
+    CompletableFuture<Activity> result = new CompletableFuture<>();
+    if (!queue.offer(new PendingWrite(activity, result))) {
+      // Writers are saturated; writing directly is no worse than queueing further
+      return activityPersistenceService.save(activity);
+    }
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    for (int i = 0; i < writers; i++) {
+      Thread thread = new Thread(this::writeLoop, "activity-write-coalescer-" + i);
+      thread.setDaemon(true);
+      thread.start();
+      writerThreads.add(thread);
+    }
+    log.info(
+        "Activity write coalescing started with writers={} maxBatchSize={} maxDelayMicros={}",
+        writers,
+        maxBatchSize,
+        TimeUnit.NANOSECONDS.toMicros(maxDelayNanos));
+  }
+
+  // Writers finish whatever is queued before the persistence layer shuts down
+  @Override
+  public void stop() {
+    running = false;
+    for (Thread thread : writerThreads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    writerThreads.clear();
+    List<PendingWrite> remaining = new ArrayList<>();
+    queue.drainTo(remaining);
+    remaining.forEach(this::writeOne);
+  }
+
+  // Stop only after the web server, so no request can still be queueing a write
+  @Override
+  public int getPhase() {
+    return SmartLifecycle.DEFAULT_PHASE - 4096;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void writeLoop() {
+    List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingWrite first = queue.poll(IDLE_POLL.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+          long remaining = deadline - System.nanoTime();
+          PendingWrite next =
+              remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        write(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        batch.forEach(this::writeOne);
+        return;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void write(List<PendingWrite> batch) {
+    batchSizes.record(batch.size());
+    if (batch.size() == 1) {
+      writeOne(batch.get(0));
+      return;
+    }
+    try {
+      List<Activity> saved =
+          activityPersistenceService.saveAll(batch.stream().map(PendingWrite::activity).toList());
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).result().complete(saved.get(i));
+      }
+    } catch (Exception e) {
+      log.warn("Coalesced write of {} activities failed, retrying individually", batch.size(), e);
+      fallbacks.increment();
+      batch.forEach(this::writeOne);
+    }
+  }
+
+  private void writeOne(PendingWrite pending) {
+    try {
+      pending.result().complete(activityPersistenceService.save(pending.activity()));
+    } catch (Exception e) {
+      pending.result().completeExceptionally(e);
+    }
+  }
+
+  private record PendingWrite(Activity activity, CompletableFuture<Activity> result) {}
+}
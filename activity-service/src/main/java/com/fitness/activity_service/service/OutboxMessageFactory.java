@@ -0,0 +1,41 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.model.Activity;
+import com.fitness.activity_service.model.OutboxMessage;
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OutboxMessageFactory {
+
+  @Value("${rabbitmq.exchange.name}")
+  private String exchange;
+
+  @Value("${rabbitmq.routing.key}")
+  private String routingKey;
+
+  @Value("${rabbitmq.bulk-routing.key:activity.tracking.bulk}")
+  private String bulkRoutingKey;
+
+  public OutboxMessage create(Activity activity) {
+    return create(activity, routingKey);
+  }
+
+  // Routed to ai-service's low-priority lane, which only uses Gemini quota left over by
+  // interactive activities
+  public OutboxMessage createBulk(Activity activity) {
+    return create(activity, bulkRoutingKey);
+  }
+
+  private OutboxMessage create(Activity activity, String routingKey) {
+    return OutboxMessage.builder()
+        .activityId(activity.getId())
+        .exchange(exchange)
+        .routingKey(routingKey)
+        .payload(activity)
+        .attempts(0)
+        .nextAttemptAt(LocalDateTime.now())
+        .build();
+  }
+}
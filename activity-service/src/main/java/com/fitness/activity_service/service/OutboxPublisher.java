@@ -0,0 +1,184 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.model.OutboxMessage;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the activity outbox in batches. Every message in a batch is sent with publisher confirms
+ * and is only removed from the outbox once the broker has acked it; anything nacked, returned as
+ * unroutable or not confirmed in time is rescheduled with exponential backoff. Delivery is
+ * therefore at-least-once, and consumers must tolerate the occasional duplicate.
+ *
+ * <p>Each message is claimed with findAndModify before it is sent, so several instances can drain
+ * the same outbox without publishing every message once each. The claim moves {@code nextAttemptAt}
+ * forward by {@code activity.outbox.claim-lease}; if the instance dies before confirming, the
+ * message becomes due again when the lease runs out.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxPublisher {
+  // Matches next_attempt_idx, so each claim reads the first due index entry instead of sorting
+  private static final Sort CLAIM_ORDER = Sort.by("nextAttemptAt", "createdAt");
+
+  private final MongoTemplate mongoTemplate;
+  private final RabbitTemplate rabbitTemplate;
+  private final String claimId = UUID.randomUUID().toString();
+
+  @Value("${activity.outbox.batch-size:100}")
+  private int batchSize;
+
+  @Value("${activity.outbox.confirm-timeout:5s}")
+  private Duration confirmTimeout;
+
+  @Value("${activity.outbox.initial-backoff:1s}")
+  private Duration initialBackoff;
+
+  @Value("${activity.outbox.max-backoff:5m}")
+  private Duration maxBackoff;
+
+  // Must comfortably exceed confirm-timeout, or another instance may publish a message again
+  // while this one is still waiting for its confirm
+  @Value("${activity.outbox.claim-lease:1m}")
+  private Duration claimLease;
+
+  @Scheduled(fixedDelayString = "${activity.outbox.poll-interval-ms:200}")
+  public void publishPending() {
+    List<OutboxMessage> batch;
+    do {
+      batch = claimBatch();
+      if (batch.isEmpty()) {
+        return;
+      }
+    } while (publishBatch(batch) && batch.size() == batchSize);
+  }
+
+  private List<OutboxMessage> claimBatch() {
+    List<OutboxMessage> batch = new ArrayList<>(batchSize);
+    while (batch.size() < batchSize) {
+      LocalDateTime now = LocalDateTime.now();
+      OutboxMessage claimed =
+          mongoTemplate.findAndModify(
+              Query.query(Criteria.where("nextAttemptAt").lte(now)).with(CLAIM_ORDER),
+              new Update().set("nextAttemptAt", now.plus(claimLease)).set("claimId", claimId),
+              FindAndModifyOptions.options().returnNew(true),
+              OutboxMessage.class);
+      if (claimed == null) {
+        break;
+      }
+      batch.add(claimed);
+    }
+    return batch;
+  }
+
+  // Returns true when every message in the batch was confirmed, so the caller can keep draining
+  private boolean publishBatch(List<OutboxMessage> batch) {
+    List<PendingConfirm> pending = new ArrayList<>(batch.size());
+    List<OutboxMessage> failed = new ArrayList<>();
+
+    for (OutboxMessage message : batch) {
+      CorrelationData correlationData = new CorrelationData(message.getId());
+      try {
+        rabbitTemplate.convertAndSend(
+            message.getExchange(), message.getRoutingKey(), message.getPayload(), correlationData);
+        pending.add(new PendingConfirm(message, correlationData));
+      } catch (Exception e) {
+        log.error("Failed to publish outbox message for activityId={}", message.getActivityId(), e);
+        markFailed(message, e.getMessage());
+        failed.add(message);
+      }
+    }
+
+    List<String> confirmedIds = new ArrayList<>(pending.size());
+    long deadline = System.nanoTime() + confirmTimeout.toNanos();
+    for (PendingConfirm confirm : pending) {
+      String error = awaitConfirm(confirm.correlationData(), deadline);
+      if (error == null) {
+        confirmedIds.add(confirm.message().getId());
+      } else {
+        markFailed(confirm.message(), error);
+        failed.add(confirm.message());
+      }
+    }
+
+    // Both writes only touch messages still claimed by this instance. One whose lease ran out may
+    // have been claimed by another instance, which now owns deleting or rescheduling it.
+    if (!confirmedIds.isEmpty()) {
+      mongoTemplate.remove(
+          Query.query(Criteria.where("_id").in(confirmedIds).and("claimId").is(claimId)),
+          OutboxMessage.class);
+      log.info("Published {} activity events to RabbitMQ", confirmedIds.size());
+    }
+    if (!failed.isEmpty()) {
+      BulkOperations bulk =
+          mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxMessage.class);
+      for (OutboxMessage message : failed) {
+        bulk.updateOne(
+            Query.query(Criteria.where("_id").is(message.getId()).and("claimId").is(claimId)),
+            new Update()
+                .set("attempts", message.getAttempts())
+                .set("lastError", message.getLastError())
+                .set("nextAttemptAt", message.getNextAttemptAt())
+                .unset("claimId"));
+      }
+      bulk.execute();
+      log.warn("{} activity events could not be confirmed and were rescheduled", failed.size());
+    }
+    return failed.isEmpty();
+  }
+
+  private String awaitConfirm(CorrelationData correlationData, long deadline) {
+    try {
+      long remaining = Math.max(0, deadline - System.nanoTime());
+      CorrelationData.Confirm confirm =
+          correlationData.getFuture().get(remaining, TimeUnit.NANOSECONDS);
+      if (!confirm.isAck()) {
+        return "Broker nacked message: " + confirm.getReason();
+      }
+      if (correlationData.getReturned() != null) {
+        return "Message returned as unroutable: " + correlationData.getReturned().getReplyText();
+      }
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "Interrupted while waiting for publisher confirm";
+    } catch (Exception e) {
+      return "No publisher confirm received: " + e.getMessage();
+    }
+  }
+
+  private void markFailed(OutboxMessage message, String error) {
+    int attempts = message.getAttempts() + 1;
+    long backoffMillis =
+        Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempts - 1, 20));
+    message.setAttempts(attempts);
+    message.setLastError(error);
+    message.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMillis)));
+    log.warn(
+        "Outbox publish attempt {} failed for activityId={}: {}",
+        attempts,
+        message.getActivityId(),
+        error);
+  }
+
+  private record PendingConfirm(OutboxMessage message, CorrelationData correlationData) {}
+}
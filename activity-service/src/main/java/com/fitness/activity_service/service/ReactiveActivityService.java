@@ -0,0 +1,180 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.client.user.UserServiceClient;
+import com.fitness.activity_service.dto.ActivityPageResponse;
+import com.fitness.activity_service.dto.ActivityRequest;
+import com.fitness.activity_service.dto.ActivityResponse;
+import com.fitness.activity_service.dto.ActivityStatsResponse;
+import com.fitness.activity_service.dto.SampleRangeResponse;
+import com.fitness.activity_service.model.Activity;
+import com.fitness.activity_service.model.RollupGranularity;
+import com.fitness.activity_service.repository.ReactiveActivityRepository;
+import com.fitness.activity_service.repository.ReactiveOutboxMessageRepository;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Non-blocking counterpart of {@link ActivityService}, active with the {@code reactive} profile.
+ * Nothing here blocks a thread: user validation goes through the reactive {@link
+ * UserServiceClient}, Mongo access through reactive repositories, and RabbitMQ is never touched on
+ * the request path because events are handed to the outbox in the same transaction as the activity.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveActivityService {
+  private final ReactiveActivityRepository activityRepository;
+  private final ReactiveOutboxMessageRepository outboxMessageRepository;
+  private final OutboxMessageFactory outboxMessageFactory;
+  private final UserServiceClient userServiceClient;
+  private final TransactionalOperator reactiveTransactionalOperator;
+  private final ActivityRollupService activityRollupService;
+  private final SampleSeriesService sampleSeriesService;
+
+  private static final int MAX_TRANSACTION_RETRIES = 2;
+
+  @Value("${activity.history.max-page-size:200}")
+  private int maxPageSize;
+
+  public Mono<ActivityResponse> trackActivity(ActivityRequest activityRequest) {
+    log.info("trackActivity called for user with keycloakId={}", activityRequest.getKeycloakId());
+    return validateUser(activityRequest.getKeycloakId())
+        .flatMap(
+            valid -> {
+              if (!valid) {
+                log.error(
+                    "User validation failed for user with keycloakId={}",
+                    activityRequest.getKeycloakId());
+                return Mono.empty();
+              }
+              return save(ActivityMapper.toActivity(activityRequest));
+            })
+        .map(ActivityMapper::toActivityResponse)
+        .doOnError(
+            e ->
+                log.error(
+                    "Error occurred while tracking activity for user with keycloakId={}",
+                    activityRequest.getKeycloakId(),
+                    e));
+  }
+
+  public Mono<ActivityResponse> getActivityById(String activityId) {
+    log.info("getActivityById called for activityId={}", activityId);
+    return activityRepository
+        .findById(activityId)
+        .map(ActivityMapper::toActivityResponse)
+        .switchIfEmpty(
+            Mono.fromRunnable(() -> log.warn("Activity not found for activityId={}", activityId)));
+  }
+
+  public Flux<ActivityResponse> getActivitiesByKeycloakId(String keycloakId) {
+    log.info("getActivitiesByUserId called for keycloakId={}", keycloakId);
+    return validateUser(keycloakId)
+        .flatMapMany(
+            valid -> {
+              if (!valid) {
+                log.warn("User validation failed for user with keycloakId={}", keycloakId);
+                return Flux.empty();
+              }
+              return activityRepository.findByKeycloakId(keycloakId);
+            })
+        .map(ActivityMapper::toActivityResponse);
+  }
+
+  public Mono<ActivityPageResponse> getActivityPage(String keycloakId, String cursor, int size) {
+    log.info("getActivityPage called for keycloakId={} with cursor={}", keycloakId, cursor);
+    int pageSize = Math.max(1, Math.min(size, maxPageSize));
+    ActivityCursor after =
+        cursor != null && !cursor.isBlank() ? ActivityCursor.decode(cursor) : null;
+
+    return validateUser(keycloakId)
+        .filter(Boolean::booleanValue)
+        .flatMap(
+            valid ->
+                activityRepository
+                    .findPageByKeycloakId(
+                        keycloakId,
+                        after != null ? after.startTime() : null,
+                        after != null ? after.id() : null,
+                        pageSize + 1)
+                    .collectList())
+        .map(
+            activities -> {
+              boolean hasMore = activities.size() > pageSize;
+              List<Activity> page = hasMore ? activities.subList(0, pageSize) : activities;
+              return ActivityPageResponse.builder()
+                  .items(page.stream().map(ActivityMapper::toActivityResponse).toList())
+                  .nextCursor(
+                      hasMore ? ActivityCursor.of(page.get(page.size() - 1)).encode() : null)
+                  .build();
+            });
+  }
+
+  public Mono<SampleRangeResponse> getSamples(
+      String activityId, String metric, long fromOffsetMillis, long toOffsetMillis) {
+    log.info("getSamples called for activityId={} metric={}", activityId, metric);
+    return sampleSeriesService.getSamplesReactive(
+        activityId, metric, fromOffsetMillis, toOffsetMillis);
+  }
+
+  public Mono<Boolean> validateUser(String keycloakId) {
+    return userServiceClient.validateUser(keycloakId).defaultIfEmpty(false);
+  }
+
+  public Flux<ActivityResponse> streamActivities(String keycloakId) {
+    log.info("streamActivities called for keycloakId={}", keycloakId);
+    return activityRepository
+        .streamByKeycloakId(keycloakId)
+        .map(ActivityMapper::toActivityResponse);
+  }
+
+  public Mono<ActivityStatsResponse> getStats(
+      String keycloakId, RollupGranularity granularity, LocalDate from, LocalDate to) {
+    log.info("getStats called for keycloakId={} granularity={}", keycloakId, granularity);
+    LocalDate rangeEnd = to != null ? to : LocalDate.now();
+    LocalDate rangeStart =
+        from != null ? from : ActivityStatsMapper.defaultFrom(granularity, rangeEnd);
+    return validateUser(keycloakId)
+        .filter(Boolean::booleanValue)
+        .flatMap(
+            valid ->
+                activityRollupService
+                    .getRollupsReactive(keycloakId, granularity, rangeStart, rangeEnd)
+                    .collectList())
+        .map(
+            rollups ->
+                ActivityStatsMapper.toStatsResponse(
+                    keycloakId, granularity, rangeStart, rangeEnd, rollups));
+  }
+
+  private Mono<Activity> save(Activity activity) {
+    sampleSeriesService.summarize(activity);
+    return Mono.defer(
+            () ->
+                activityRepository
+                    .save(activity)
+                    .flatMap(
+                        savedActivity ->
+                            outboxMessageRepository
+                                .save(outboxMessageFactory.create(savedActivity))
+                                .then(activityRollupService.applyReactive(savedActivity))
+                                .then(sampleSeriesService.saveChunksReactive(savedActivity))
+                                .thenReturn(savedActivity))
+                    .as(reactiveTransactionalOperator::transactional))
+        .retryWhen(
+            Retry.max(MAX_TRANSACTION_RETRIES).filter(ActivityPersistenceService::isTransient))
+        .doOnNext(
+            savedActivity ->
+                log.info("Activity saved successfully with activityId={}", savedActivity.getId()));
+  }
+}
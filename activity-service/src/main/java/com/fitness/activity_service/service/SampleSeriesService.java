@@ -0,0 +1,225 @@
+package com.fitness.activity_service.service;
+
+import com.fitness.activity_service.dto.SampleRangeResponse;
+import com.fitness.activity_service.model.Activity;
+import com.fitness.activity_service.model.SampleChunk;
+import com.fitness.activity_service.model.SampleSeries;
+import com.fitness.activity_service.model.SampleSeriesSummary;
+import com.fitness.activity_service.utils.SampleSeriesCodec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Splits uploaded sensor series into encoded {@link SampleChunk}s stored next to, not inside, the
+ * activity document. The activity (and therefore the queue message to ai-service) only carries a
+ * {@link SampleSeriesSummary} per metric; the samples themselves are read back by offset range.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SampleSeriesService {
+  // Half the long range, so the difference of two scaled values cannot overflow either
+  private static final double MAX_SCALED_VALUE = 0x1p62;
+
+  private final MongoTemplate mongoTemplate;
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  @Value("${activity.samples.chunk-size:1024}")
+  private int chunkSize;
+
+  @Value("${activity.samples.default-precision:2}")
+  private int defaultPrecision;
+
+  @Value("${activity.samples.max-samples-per-series:200000}")
+  private int maxSamplesPerSeries;
+
+  @Value("${activity.samples.max-precision:6}")
+  private int maxPrecision;
+
+  /**
+   * Validates the activity's raw series and stores a summary of each one on the activity. A series
+   * that cannot be stored is rejected with 400 Bad Request naming its metric.
+   */
+  public void summarize(Activity activity) {
+    Map<String, SampleSeries> sampleSeries = activity.getSampleSeries();
+    if (sampleSeries == null || sampleSeries.isEmpty()) {
+      return;
+    }
+    Map<String, SampleSeriesSummary> summaries = new LinkedHashMap<>();
+    sampleSeries.forEach((metric, series) -> summaries.put(metric, summarize(metric, series)));
+    activity.setSampleSummaries(summaries);
+  }
+
+  public void saveChunks(List<Activity> activities) {
+    List<SampleChunk> chunks = new ArrayList<>();
+    for (Activity activity : activities) {
+      chunks.addAll(toChunks(activity));
+    }
+    if (!chunks.isEmpty()) {
+      mongoTemplate.insertAll(chunks);
+      log.info("Saved {} sample chunks for {} activities", chunks.size(), activities.size());
+    }
+  }
+
+  public Mono<Void> saveChunksReactive(Activity activity) {
+    List<SampleChunk> chunks = toChunks(activity);
+    return chunks.isEmpty() ? Mono.empty() : reactiveMongoTemplate.insertAll(chunks).then();
+  }
+
+  public SampleRangeResponse getSamples(
+      String activityId, String metric, long fromOffsetMillis, long toOffsetMillis) {
+    List<SampleChunk> chunks =
+        mongoTemplate.find(
+            rangeQuery(activityId, metric, fromOffsetMillis, toOffsetMillis), SampleChunk.class);
+    return decode(activityId, metric, chunks, fromOffsetMillis, toOffsetMillis);
+  }
+
+  public Mono<SampleRangeResponse> getSamplesReactive(
+      String activityId, String metric, long fromOffsetMillis, long toOffsetMillis) {
+    return reactiveMongoTemplate
+        .find(rangeQuery(activityId, metric, fromOffsetMillis, toOffsetMillis), SampleChunk.class)
+        .collectList()
+        .map(chunks -> decode(activityId, metric, chunks, fromOffsetMillis, toOffsetMillis));
+  }
+
+  private SampleSeriesSummary summarize(String metric, SampleSeries series) {
+    long[] offsets = series.getOffsetsMillis();
+    double[] values = series.getValues();
+    if (offsets == null || values == null || offsets.length != values.length) {
+      throw invalid(metric, "must have the same number of offsets and values");
+    }
+    if (offsets.length > maxSamplesPerSeries) {
+      throw invalid(metric, "exceeds " + maxSamplesPerSeries + " samples");
+    }
+    int precision = series.getPrecision() != null ? series.getPrecision() : defaultPrecision;
+    if (precision < 0 || precision > maxPrecision) {
+      throw invalid(metric, "precision must be between 0 and " + maxPrecision);
+    }
+    if (offsets.length == 0) {
+      return SampleSeriesSummary.builder().build();
+    }
+
+    // Values are stored as deltas of value * 10^precision, which must fit in a long
+    double maxAbsValue = MAX_SCALED_VALUE / Math.pow(10, precision);
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    double sum = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0 && offsets[i] < offsets[i - 1]) {
+        throw invalid(metric, "offsets must not decrease, at sample " + i);
+      }
+      double value = values[i];
+      if (!(Math.abs(value) <= maxAbsValue)) {
+        throw invalid(
+            metric, "value at sample " + i + " cannot be stored at precision " + precision);
+      }
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+      sum += value;
+    }
+    return SampleSeriesSummary.builder()
+        .count(values.length)
+        .min(min)
+        .max(max)
+        .mean(sum / values.length)
+        .startOffsetMillis(offsets[0])
+        .endOffsetMillis(offsets[offsets.length - 1])
+        .chunks((values.length + chunkSize - 1) / chunkSize)
+        .build();
+  }
+
+  private static ResponseStatusException invalid(String metric, String reason) {
+    return new ResponseStatusException(
+        HttpStatus.BAD_REQUEST, "Sample series " + metric + " " + reason);
+  }
+
+  private List<SampleChunk> toChunks(Activity activity) {
+    Map<String, SampleSeries> sampleSeries = activity.getSampleSeries();
+    if (sampleSeries == null || sampleSeries.isEmpty()) {
+      return List.of();
+    }
+    List<SampleChunk> chunks = new ArrayList<>();
+    sampleSeries.forEach(
+        (metric, series) -> {
+          long[] offsets = series.getOffsetsMillis();
+          double[] values = series.getValues();
+          int precision = series.getPrecision() != null ? series.getPrecision() : defaultPrecision;
+          for (int from = 0, index = 0; from < offsets.length; from += chunkSize, index++) {
+            int to = Math.min(from + chunkSize, offsets.length);
+            chunks.add(
+                SampleChunk.builder()
+                    .activityId(activity.getId())
+                    .keycloakId(activity.getKeycloakId())
+                    .metric(metric)
+                    .chunkIndex(index)
+                    .startOffsetMillis(offsets[from])
+                    .endOffsetMillis(offsets[to - 1])
+                    .count(to - from)
+                    .precision(precision)
+                    .offsets(SampleSeriesCodec.encodeOffsets(offsets, from, to))
+                    .values(SampleSeriesCodec.encodeValues(values, from, to, precision))
+                    .build());
+          }
+        });
+    return chunks;
+  }
+
+  private Query rangeQuery(
+      String activityId, String metric, long fromOffsetMillis, long toOffsetMillis) {
+    return Query.query(
+            Criteria.where("activityId")
+                .is(activityId)
+                .and("metric")
+                .is(metric)
+                .and("startOffsetMillis")
+                .lte(toOffsetMillis)
+                .and("endOffsetMillis")
+                .gte(fromOffsetMillis))
+        .with(Sort.by("startOffsetMillis"));
+  }
+
+  private SampleRangeResponse decode(
+      String activityId,
+      String metric,
+      List<SampleChunk> chunks,
+      long fromOffsetMillis,
+      long toOffsetMillis) {
+    int total = chunks.stream().mapToInt(SampleChunk::getCount).sum();
+    long[] offsets = new long[total];
+    double[] values = new double[total];
+    int size = 0;
+    for (SampleChunk chunk : chunks) {
+      long[] chunkOffsets = SampleSeriesCodec.decodeOffsets(chunk.getOffsets(), chunk.getCount());
+      double[] chunkValues =
+          SampleSeriesCodec.decodeValues(chunk.getValues(), chunk.getCount(), chunk.getPrecision());
+      for (int i = 0; i < chunk.getCount(); i++) {
+        if (chunkOffsets[i] >= fromOffsetMillis && chunkOffsets[i] <= toOffsetMillis) {
+          offsets[size] = chunkOffsets[i];
+          values[size] = chunkValues[i];
+          size++;
+        }
+      }
+    }
+    return SampleRangeResponse.builder()
+        .activityId(activityId)
+        .metric(metric)
+        .offsetsMillis(Arrays.copyOf(offsets, size))
+        .values(Arrays.copyOf(values, size))
+        .build();
+  }
+}
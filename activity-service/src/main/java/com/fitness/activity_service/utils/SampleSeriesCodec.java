@@ -0,0 +1,86 @@
+package com.fitness.activity_service.utils;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encodes sample series as delta + zigzag varint byte arrays. Offsets are usually evenly spaced and
+ * values change slowly between samples, so most deltas fit in one or two bytes instead of the ~17
+ * bytes BSON spends on every boxed array element.
+ */
+public final class SampleSeriesCodec {
+
+  private SampleSeriesCodec() {}
+
+  public static byte[] encodeOffsets(long[] offsets, int from, int to) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream((to - from) * 2);
+    long previous = 0;
+    for (int i = from; i < to; i++) {
+      writeVarint(out, zigzag(offsets[i] - previous));
+      previous = offsets[i];
+    }
+    return out.toByteArray();
+  }
+
+  public static byte[] encodeValues(double[] values, int from, int to, int precision) {
+    double scale = Math.pow(10, precision);
+    ByteArrayOutputStream out = new ByteArrayOutputStream((to - from) * 2);
+    long previous = 0;
+    for (int i = from; i < to; i++) {
+      long scaled = Math.round(values[i] * scale);
+      writeVarint(out, zigzag(scaled - previous));
+      previous = scaled;
+    }
+    return out.toByteArray();
+  }
+
+  public static long[] decodeOffsets(byte[] encoded, int count) {
+    long[] offsets = new long[count];
+    int[] position = {0};
+    long previous = 0;
+    for (int i = 0; i < count; i++) {
+      previous += unzigzag(readVarint(encoded, position));
+      offsets[i] = previous;
+    }
+    return offsets;
+  }
+
+  public static double[] decodeValues(byte[] encoded, int count, int precision) {
+    double scale = Math.pow(10, precision);
+    double[] values = new double[count];
+    int[] position = {0};
+    long previous = 0;
+    for (int i = 0; i < count; i++) {
+      previous += unzigzag(readVarint(encoded, position));
+      values[i] = previous / scale;
+    }
+    return values;
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long readVarint(byte[] encoded, int[] position) {
+    long result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = encoded[position[0]++];
+      result |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return result;
+  }
+}
@@ -0,0 +1,93 @@
+package com.fitness.activity_service.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load driver for comparing the servlet and reactive modes of activity-service. Not a unit test;
+ * run its main method against a running instance (directly on port 8082, bypassing the gateway):
+ *
+ * <pre>
+ * TrackLoadDriver [baseUrl] [keycloakId] [requests] [concurrency]
+ * </pre>
+ *
+ * It fires {@code requests} POST /api/activities/track calls with at most {@code concurrency} in
+ * flight and prints throughput, error count and latency percentiles.
+ */
+public class TrackLoadDriver {
+
+  public static void main(String[] args) throws Exception {
+    String baseUrl = args.length > 0 ? args[0] : "http://localhost:8082";
+    String keycloakId = args.length > 1 ? args[1] : "load-test-user";
+    int requests = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+    int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 1_000;
+
+    HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    URI uri = URI.create(baseUrl + "/api/activities/track");
+    Semaphore inFlight = new Semaphore(concurrency);
+    long[] latencies = new long[requests];
+    AtomicInteger errors = new AtomicInteger();
+
+    long start = System.nanoTime();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < requests; i++) {
+        inFlight.acquire();
+        int index = i;
+        executor.submit(
+            () -> {
+              long sent = System.nanoTime();
+              try {
+                HttpResponse<Void> response =
+                    client.send(request(uri, keycloakId), HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 200) {
+                  errors.incrementAndGet();
+                }
+              } catch (Exception e) {
+                errors.incrementAndGet();
+              } finally {
+                latencies[index] = System.nanoTime() - sent;
+                inFlight.release();
+              }
+            });
+      }
+    }
+    double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+    Arrays.sort(latencies);
+    System.out.printf(
+        "requests=%d concurrency=%d errors=%d elapsed=%.2fs throughput=%.0f req/s%n",
+        requests, concurrency, errors.get(), elapsedSeconds, requests / elapsedSeconds);
+    System.out.printf(
+        "latency p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms%n",
+        percentile(latencies, 0.50),
+        percentile(latencies, 0.95),
+        percentile(latencies, 0.99),
+        latencies[latencies.length - 1] / 1e6);
+  }
+
+  private static HttpRequest request(URI uri, String keycloakId) {
+    String body =
+        """
+        {"keycloakId":"%s","activityType":"RUNNING","duration":30,"caloriesBurned":300,\
+        "startTime":"%s","additionalMetrics":{"distance":5.2}}"""
+            .formatted(keycloakId, LocalDateTime.now());
+    return HttpRequest.newBuilder(uri)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+
+  private static double percentile(long[] sorted, double percentile) {
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, index)] / 1e6;
+  }
+}
@@ -0,0 +1,109 @@
+package com.fitness.activity_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fitness.activity_service.model.Activity;
+import com.fitness.activity_service.model.SampleSeries;
+import com.fitness.activity_service.model.SampleSeriesSummary;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+class SampleSeriesServiceTest {
+  private SampleSeriesService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new SampleSeriesService(null, null);
+    ReflectionTestUtils.setField(service, "chunkSize", 2);
+    ReflectionTestUtils.setField(service, "defaultPrecision", 2);
+    ReflectionTestUtils.setField(service, "maxSamplesPerSeries", 10);
+    ReflectionTestUtils.setField(service, "maxPrecision", 6);
+  }
+
+  @Test
+  void summarizesSeriesWithEqualOffsetsAndNegativeValues() {
+    Activity activity = activity(new long[] {0, 1000, 1000}, new double[] {3.5, -1.5, 1}, null);
+
+    service.summarize(activity);
+
+    SampleSeriesSummary summary = activity.getSampleSummaries().get("heartRate");
+    assertThat(summary.getCount()).isEqualTo(3);
+    assertThat(summary.getMin()).isEqualTo(-1.5);
+    assertThat(summary.getMax()).isEqualTo(3.5);
+    assertThat(summary.getMean()).isEqualTo(1);
+    assertThat(summary.getStartOffsetMillis()).isZero();
+    assertThat(summary.getEndOffsetMillis()).isEqualTo(1000);
+    assertThat(summary.getChunks()).isEqualTo(2);
+  }
+
+  @Test
+  void rejectsDecreasingOffsets() {
+    Activity activity = activity(new long[] {0, 2000, 1000}, new double[] {1, 2, 3}, null);
+
+    assertBadRequest(activity, "offsets must not decrease, at sample 2");
+  }
+
+  @Test
+  void rejectsPrecisionOutsideTheAllowedRange() {
+    assertBadRequest(activity(new long[] {0}, new double[] {1}, -1), "precision must be between");
+    assertBadRequest(activity(new long[] {0}, new double[] {1}, 7), "precision must be between");
+  }
+
+  @Test
+  void acceptsTheLargestValueThatFitsAtMaxPrecision() {
+    double limit = 0x1p62 / 1e6;
+    Activity activity = activity(new long[] {0, 1}, new double[] {limit, -limit}, 6);
+
+    service.summarize(activity);
+
+    assertThat(activity.getSampleSummaries().get("heartRate").getCount()).isEqualTo(2);
+  }
+
+  @Test
+  void rejectsValuesThatOverflowAtTheirPrecision() {
+    double limit = 0x1p62 / 1e6;
+
+    assertBadRequest(
+        activity(new long[] {0, 1}, new double[] {1, limit * 2}, 6),
+        "value at sample 1 cannot be stored at precision 6");
+    assertBadRequest(
+        activity(new long[] {0}, new double[] {Double.NaN}, 0),
+        "value at sample 0 cannot be stored at precision 0");
+  }
+
+  @Test
+  void rejectsMismatchedAndOversizedSeries() {
+    assertBadRequest(
+        activity(new long[] {0, 1}, new double[] {1}, null),
+        "must have the same number of offsets and values");
+    assertBadRequest(activity(new long[11], new double[11], null), "exceeds 10 samples");
+  }
+
+  private void assertBadRequest(Activity activity, String reason) {
+    assertThatThrownBy(() -> service.summarize(activity))
+        .isInstanceOfSatisfying(
+            ResponseStatusException.class,
+            e -> {
+              assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+              assertThat(e.getReason()).startsWith("Sample series heartRate ").contains(reason);
+            });
+  }
+
+  private static Activity activity(long[] offsets, double[] values, Integer precision) {
+    return Activity.builder()
+        .sampleSeries(
+            Map.of(
+                "heartRate",
+                SampleSeries.builder()
+                    .offsetsMillis(offsets)
+                    .values(values)
+                    .precision(precision)
+                    .build()))
+        .build();
+  }
+}
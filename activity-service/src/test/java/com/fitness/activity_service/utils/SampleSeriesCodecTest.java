@@ -0,0 +1,70 @@
+package com.fitness.activity_service.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class SampleSeriesCodecTest {
+
+  @Test
+  void roundTripsOffsetsIncludingRepeatedOnes() {
+    long[] offsets = {0, 1000, 1000, 1000, 2500, 86_400_000, 86_400_000};
+
+    byte[] encoded = SampleSeriesCodec.encodeOffsets(offsets, 0, offsets.length);
+
+    assertThat(SampleSeriesCodec.decodeOffsets(encoded, offsets.length)).containsExactly(offsets);
+  }
+
+  @Test
+  void roundTripsASliceOfOffsets() {
+    long[] offsets = {5, 10, 20, 40, 80};
+
+    byte[] encoded = SampleSeriesCodec.encodeOffsets(offsets, 2, 5);
+
+    assertThat(SampleSeriesCodec.decodeOffsets(encoded, 3)).containsExactly(20, 40, 80);
+  }
+
+  @Test
+  void roundTripsValuesWithNegativeDeltas() {
+    double[] values = {72.5, 71.25, 71.25, -3.75, -120.5, 0, 180.01};
+
+    byte[] encoded = SampleSeriesCodec.encodeValues(values, 0, values.length, 2);
+
+    assertThat(SampleSeriesCodec.decodeValues(encoded, values.length, 2)).containsExactly(values);
+  }
+
+  @Test
+  void roundsValuesToPrecisionZero() {
+    double[] values = {10.4, 10.6, -2.4, -2.6, 7};
+
+    byte[] encoded = SampleSeriesCodec.encodeValues(values, 0, values.length, 0);
+
+    assertThat(SampleSeriesCodec.decodeValues(encoded, values.length, 0))
+        .containsExactly(10, 11, -2, -3, 7);
+  }
+
+  @Test
+  void roundTripsValuesAtMaxPrecision() {
+    double[] values = {123456.789012, -98765.432109, 0.000001, -0.000001};
+
+    byte[] encoded = SampleSeriesCodec.encodeValues(values, 0, values.length, 6);
+
+    assertThat(SampleSeriesCodec.decodeValues(encoded, values.length, 6)).containsExactly(values);
+  }
+
+  // Scaled values up to 2^62 in magnitude are accepted, so a delta between the two extremes
+  // wraps past Long.MAX_VALUE and must still decode
+  @Test
+  void roundTripsTheLargestAcceptedValuesAtMaxPrecision() {
+    double limit = 0x1p62 / 1e6;
+    double[] values = {limit, -limit, limit};
+
+    byte[] encoded = SampleSeriesCodec.encodeValues(values, 0, values.length, 6);
+
+    double[] decoded = SampleSeriesCodec.decodeValues(encoded, values.length, 6);
+    for (int i = 0; i < values.length; i++) {
+      assertThat(decoded[i]).isCloseTo(values[i], within(1e-3));
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.fitness.ai_service.client.gemini;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Stops calling Gemini while it is unavailable. After {@code failure-threshold} consecutive calls
+ * fail with a timeout, a connection error, a 429 or a 5xx, the breaker opens and {@link
+ * #isCallPermitted()} turns callers away. Every {@code open-duration} one probe call is let
+ * through; the first call that succeeds closes the breaker again.
+ */
+@Component
+@Slf4j
+public class GeminiCircuitBreaker {
+  private final boolean enabled;
+  private final int failureThreshold;
+  private final long openNanos;
+  private final Counter opened;
+
+  private int consecutiveFailures;
+  private boolean open;
+  private long nextProbeNanos;
+
+  public GeminiCircuitBreaker(
+      MeterRegistry meterRegistry,
+      @Value("${gemini.circuit-breaker.enabled:true}") boolean enabled,
+      @Value("${gemini.circuit-breaker.failure-threshold:5}") int failureThreshold,
+      @Value("${gemini.circuit-breaker.open-duration:30s}") Duration openDuration) {
+    this.enabled = enabled;
+    this.failureThreshold = Math.max(failureThreshold, 1);
+    this.openNanos = openDuration.toNanos();
+    Gauge.builder("gemini.circuit-breaker.open", this, breaker -> breaker.isOpen() ? 1 : 0)
+        .register(meterRegistry);
+    this.opened = Counter.builder("gemini.circuit-breaker.opened").register(meterRegistry);
+  }
+
+  public synchronized boolean isOpen() {
+    return open;
+  }
+
+  /** Whether the breaker is open and would let a probe call through now. */
+  public synchronized boolean isProbeDue() {
+    return open && System.nanoTime() - nextProbeNanos >= 0;
+  }
+
+  /** Whether a Gemini call may start now; while open, this is true once per open duration. */
+  public synchronized boolean isCallPermitted() {
+    if (!open) {
+      return true;
+    }
+    long now = System.nanoTime();
+    if (now - nextProbeNanos < 0) {
+      return false;
+    }
+    nextProbeNanos = now + openNanos;
+    log.info("Gemini circuit breaker open, letting a probe call through");
+    return true;
+  }
+
+  /** Reports the outcome of the call to the breaker when it terminates. */
+  public <T> Mono<T> record(Mono<T> call) {
+    return call.doOnSuccess(value -> onSuccess()).doOnError(this::onError);
+  }
+
+  /** Like {@link #record(Mono)}, for a streamed answer. */
+  public <T> Flux<T> record(Flux<T> call) {
+    return call.doOnComplete(this::onSuccess).doOnError(this::onError);
+  }
+
+  private synchronized void onSuccess() {
+    consecutiveFailures = 0;
+    if (open) {
+      open = false;
+      log.info("Gemini answered again, closing the circuit breaker");
+    }
+  }
+
+  private void onError(Throwable error) {
+    if (!enabled || !isUnavailable(error)) {
+      return;
+    }
+    synchronized (this) {
+      consecutiveFailures++;
+      if (open || consecutiveFailures < failureThreshold) {
+        return;
+      }
+      open = true;
+      nextProbeNanos = System.nanoTime() + openNanos;
+    }
+    opened.increment();
+    log.warn(
+        "Opening the Gemini circuit breaker after {} consecutive failures, last: {}",
+        failureThreshold,
+        error.toString());
+  }
+
+  // Errors in what was sent, such as a 400, would fail the same way with Gemini up
+  private static boolean isUnavailable(Throwable error) {
+    if (error instanceof WebClientResponseException responseException) {
+      return responseException.getStatusCode().value() == 429
+          || responseException.getStatusCode().is5xxServerError();
+    }
+    return error instanceof TimeoutException || error instanceof WebClientRequestException;
+  }
+}
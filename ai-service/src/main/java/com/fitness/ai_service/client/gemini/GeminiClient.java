@@ -1,15 +1,25 @@
 package com.fitness.ai_service.client.gemini;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fitness.ai_service.dto.GeminiRequest;
+import java.time.Duration;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Component
 @Slf4j
 public class GeminiClient {
   private final WebClient webClient;
+  private final GeminiConcurrencyLimit concurrencyLimit;
+  private final GeminiHedgingPolicy hedgingPolicy;
+  private final GeminiCircuitBreaker circuitBreaker;
 
   @Value("${gemini.api.key}")
   private String apiKey;
@@ -17,30 +27,100 @@ public class GeminiClient {
   @Value("${gemini.api.url}")
   private String apiUrl;
 
-  public GeminiClient(WebClient.Builder webClientBuilder) {
+  // Defaults to apiUrl with :generateContent replaced by :streamGenerateContent?alt=sse
+  @Value("${gemini.api.stream-url:}")
+  private String streamUrl;
+
+  @Value("${gemini.api.timeout:30s}")
+  private Duration timeout;
+
+  public GeminiClient(
+      WebClient.Builder webClientBuilder,
+      GeminiConcurrencyLimit concurrencyLimit,
+      GeminiHedgingPolicy hedgingPolicy,
+      GeminiCircuitBreaker circuitBreaker) {
     this.webClient = webClientBuilder.build();
+    this.concurrencyLimit = concurrencyLimit;
+    this.hedgingPolicy = hedgingPolicy;
+    this.circuitBreaker = circuitBreaker;
   }
 
   public String getAnswer(String question) {
-    GeminiRequest request = GeminiRequest.fromText(question);
-
-    log.info("Sending request to Gemini API");
     try {
-      String response =
-          webClient
-              .post()
-              .uri(apiUrl)
-              .header("x-goog-api-key", apiKey)
-              .header("Content-Type", "application/json")
-              .bodyValue(request)
-              .retrieve()
-              .bodyToMono(String.class)
-              .block();
-      log.info("Received response from Gemini API={}", response);
-      return response;
+      return getAnswerAsync(question).block();
     } catch (Exception e) {
       log.error("Error while calling Gemini API", e);
       throw new IllegalStateException("Failed to get answer from Gemini API", e);
     }
   }
+
+  /**
+   * Non-blocking variant of {@link #getAnswer(String)}; the request is sent on subscription, and
+   * hedged by {@link GeminiHedgingPolicy} when it is slow.
+   */
+  public Mono<String> getAnswerAsync(String question) {
+    GeminiRequest request = GeminiRequest.fromText(question);
+    return Mono.defer(
+            () -> {
+              log.info("Sending request to Gemini API");
+              return webClient
+                  .post()
+                  .uri(apiUrl)
+                  .header("x-goog-api-key", apiKey)
+                  .header("Content-Type", "application/json")
+                  .bodyValue(request)
+                  .retrieve()
+                  .bodyToMono(String.class)
+                  .timeout(timeout)
+                  .doOnNext(response -> log.info("Received response from Gemini API={}", response));
+            })
+        .transform(concurrencyLimit::measure)
+        .transform(circuitBreaker::record)
+        .transform(hedgingPolicy::hedge);
+  }
+
+  /**
+   * Streams the answer from the streaming generate endpoint as server-sent events, emitting each
+   * piece of generated text as soon as it arrives. {@code timeout} applies to the wait for each
+   * event rather than to the whole stream.
+   */
+  public Flux<String> streamAnswer(String question) {
+    GeminiRequest request = GeminiRequest.fromText(question);
+    return Flux.defer(
+            () -> {
+              log.info("Sending streaming request to Gemini API");
+              return webClient
+                  .post()
+                  .uri(resolveStreamUrl())
+                  .header("x-goog-api-key", apiKey)
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .accept(MediaType.TEXT_EVENT_STREAM)
+                  .bodyValue(request)
+                  .retrieve()
+                  .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<JsonNode>>() {})
+                  .timeout(timeout)
+                  .mapNotNull(ServerSentEvent::data)
+                  .map(GeminiClient::extractText)
+                  .filter(text -> !text.isEmpty());
+            })
+        .transform(concurrencyLimit::measure)
+        .transform(circuitBreaker::record);
+  }
+
+  private String resolveStreamUrl() {
+    if (streamUrl != null && !streamUrl.isBlank()) {
+      return streamUrl;
+    }
+    String url = apiUrl.replace(":generateContent", ":streamGenerateContent");
+    return url + (url.contains("?") ? "&" : "?") + "alt=sse";
+  }
+
+  // Each streamed event is a complete GenerateContentResponse holding the next piece of text
+  private static String extractText(JsonNode response) {
+    StringBuilder text = new StringBuilder();
+    for (JsonNode part : response.path("candidates").path(0).path("content").path("parts")) {
+      text.append(part.path("text").asText(""));
+    }
+    return text.toString();
+  }
 }
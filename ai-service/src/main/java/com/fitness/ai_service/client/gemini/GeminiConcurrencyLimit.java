@@ -0,0 +1,154 @@
+package com.fitness.ai_service.client.gemini;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Adaptive limit on concurrent Gemini calls (additive increase, multiplicative decrease). Every
+ * call made through {@link GeminiClient} reports its outcome here: a fast success while the limit
+ * is in use raises the limit by one per limit's worth of calls, and a 429, a 5xx, a timeout or a
+ * call slower than {@code slow-call-threshold} cuts it by {@code backoff-ratio}, at most once per
+ * typical call duration so that one burst of failures counts once. The limit itself is enforced by
+ * the scheduler that starts the calls, and counts activities rather than HTTP calls, so whether it
+ * is in use is judged by the slots the scheduler reports: a batched call carries several activities
+ * and would otherwise never look busy.
+ */
+@Component
+@Slf4j
+public class GeminiConcurrencyLimit {
+  private final boolean adaptive;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long slowCallNanos;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger slotsInUse = new AtomicInteger();
+  private final Counter decreases;
+
+  private double limit;
+  private long lastDecreaseNanos;
+  // Exponentially weighted average of successful call durations
+  private double averageLatencyNanos;
+
+  public GeminiConcurrencyLimit(
+      MeterRegistry meterRegistry,
+      @Value("${gemini.concurrency.adaptive:true}") boolean adaptive,
+      @Value("${gemini.concurrency.initial-limit:8}") int initialLimit,
+      @Value("${gemini.concurrency.min-limit:1}") int minLimit,
+      @Value("${gemini.concurrency.max-limit:64}") int maxLimit,
+      @Value("${gemini.concurrency.backoff-ratio:0.7}") double backoffRatio,
+      @Value("${gemini.concurrency.slow-call-threshold:20s}") Duration slowCallThreshold) {
+    this.adaptive = adaptive;
+    this.minLimit = Math.max(minLimit, 1);
+    this.maxLimit = Math.max(maxLimit, this.minLimit);
+    this.backoffRatio = backoffRatio;
+    this.slowCallNanos = slowCallThreshold.toNanos();
+    this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+    this.lastDecreaseNanos = System.nanoTime();
+    Gauge.builder("gemini.concurrency.limit", this, GeminiConcurrencyLimit::limit)
+        .register(meterRegistry);
+    Gauge.builder("gemini.concurrency.in-flight", inFlight, AtomicInteger::get)
+        .register(meterRegistry);
+    Gauge.builder("gemini.concurrency.slots-in-use", slotsInUse, AtomicInteger::get)
+        .register(meterRegistry);
+    this.decreases = Counter.builder("gemini.concurrency.decreases").register(meterRegistry);
+  }
+
+  public synchronized int limit() {
+    return (int) limit;
+  }
+
+  /** Called by the scheduler when an activity takes one of the limit's slots. */
+  public void slotAcquired() {
+    slotsInUse.incrementAndGet();
+  }
+
+  /** Called by the scheduler when an activity gives its slot back. */
+  public void slotReleased() {
+    slotsInUse.decrementAndGet();
+  }
+
+  /** Reports the outcome of the call to the limit when it terminates. */
+  public <T> Mono<T> measure(Mono<T> call) {
+    return Mono.defer(
+        () -> {
+          long start = System.nanoTime();
+          inFlight.incrementAndGet();
+          return call.doOnSuccess(value -> onSuccess(System.nanoTime() - start))
+              .doOnError(this::onError)
+              .doFinally(signal -> inFlight.decrementAndGet());
+        });
+  }
+
+  /** Like {@link #measure(Mono)}, for a streamed answer; the call ends with the stream. */
+  public <T> Flux<T> measure(Flux<T> call) {
+    return Flux.defer(
+        () -> {
+          long start = System.nanoTime();
+          inFlight.incrementAndGet();
+          return call.doOnComplete(() -> onSuccess(System.nanoTime() - start))
+              .doOnError(this::onError)
+              .doFinally(signal -> inFlight.decrementAndGet());
+        });
+  }
+
+  private void onSuccess(long latencyNanos) {
+    if (!adaptive) {
+      return;
+    }
+    synchronized (this) {
+      averageLatencyNanos =
+          averageLatencyNanos == 0 ? latencyNanos : 0.9 * averageLatencyNanos + 0.1 * latencyNanos;
+    }
+    if (latencyNanos > slowCallNanos) {
+      decrease("slow call of " + latencyNanos / 1_000_000 + " ms");
+      return;
+    }
+    synchronized (this) {
+      // Only grow a limit that is actually used; an idle service would otherwise creep to the max
+      if (slotsInUse.get() * 2 >= limit) {
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+    }
+  }
+
+  // Client errors other than 429 say nothing about Gemini's capacity
+  private void onError(Throwable error) {
+    if (!adaptive) {
+      return;
+    }
+    if (error instanceof TimeoutException) {
+      decrease("timeout");
+    } else if (error instanceof WebClientResponseException responseException
+        && (responseException.getStatusCode().value() == 429
+            || responseException.getStatusCode().is5xxServerError())) {
+      decrease("status " + responseException.getStatusCode().value());
+    }
+  }
+
+  private void decrease(String reason) {
+    long now = System.nanoTime();
+    double previous;
+    synchronized (this) {
+      if (now - lastDecreaseNanos < averageLatencyNanos) {
+        return;
+      }
+      lastDecreaseNanos = now;
+      previous = limit;
+      limit = Math.max(minLimit, limit * backoffRatio);
+    }
+    decreases.increment();
+    log.warn(
+        "Gemini concurrency limit lowered from {} to {} after {}", (int) previous, limit(), reason);
+  }
+}
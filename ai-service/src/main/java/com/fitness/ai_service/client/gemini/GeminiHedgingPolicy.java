@@ -0,0 +1,192 @@
+package com.fitness.ai_service.client.gemini;
+
+import com.fitness.ai_service.dto.HedgingStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Hedges slow Gemini calls: when a call has not answered after the {@code percentile} of recent
+ * call durations, an identical second call is sent, the first answer wins and the other call is
+ * cancelled. Hedges are paid for from a budget that grows by {@code budget-ratio} with every call,
+ * and only use spare quota, so they never delay a regular call.
+ */
+@Component
+@Slf4j
+public class GeminiHedgingPolicy {
+  private final boolean enabled;
+  private final double percentile;
+  private final double budgetRatio;
+  private final double maxBudget;
+  private final long minDelayNanos;
+  private final int minSamples;
+  private final GeminiRateLimiter geminiRateLimiter;
+  private final Counter calls;
+  private final Counter hedges;
+  private final Counter primaryWins;
+  private final Counter hedgeWins;
+  private final Counter skippedBudget;
+  private final Counter skippedQuota;
+
+  // Ring buffer of recent successful call durations
+  private final long[] latencies;
+  private int latencyCount;
+  private int nextLatency;
+  private long delayNanos = -1;
+  private double budget;
+
+  public GeminiHedgingPolicy(
+      MeterRegistry meterRegistry,
+      GeminiRateLimiter geminiRateLimiter,
+      @Value("${gemini.hedging.enabled:false}") boolean enabled,
+      @Value("${gemini.hedging.percentile:95}") double percentile,
+      @Value("${gemini.hedging.budget-ratio:0.05}") double budgetRatio,
+      @Value("${gemini.hedging.min-delay:1s}") Duration minDelay,
+      @Value("${gemini.hedging.window:1000}") int window,
+      @Value("${gemini.hedging.min-samples:100}") int minSamples) {
+    this.geminiRateLimiter = geminiRateLimiter;
+    this.enabled = enabled;
+    this.percentile = Math.clamp(percentile, 1, 100);
+    this.budgetRatio = budgetRatio;
+    // Unused budget is capped so a quiet period cannot pay for a burst of hedges later
+    this.maxBudget = Math.max(1, budgetRatio * 100);
+    this.minDelayNanos = minDelay.toNanos();
+    this.latencies = new long[Math.max(window, 1)];
+    this.minSamples = Math.clamp(minSamples, 1, latencies.length);
+    this.calls = Counter.builder("gemini.hedging.calls").register(meterRegistry);
+    this.hedges = Counter.builder("gemini.hedging.hedges").register(meterRegistry);
+    this.primaryWins =
+        Counter.builder("gemini.hedging.wins").tag("winner", "primary").register(meterRegistry);
+    this.hedgeWins =
+        Counter.builder("gemini.hedging.wins").tag("winner", "hedge").register(meterRegistry);
+    this.skippedBudget =
+        Counter.builder("gemini.hedging.skipped").tag("reason", "budget").register(meterRegistry);
+    this.skippedQuota =
+        Counter.builder("gemini.hedging.skipped").tag("reason", "quota").register(meterRegistry);
+    Gauge.builder("gemini.hedging.delay", this, policy -> policy.currentDelayNanos() / 1e6)
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Runs the call, sending a hedge once it is slower than the recent percentile. The call is
+   * subscribed to once more for the hedge, so it must be deferred. If the first call fails before a
+   * hedge was sent, its error is returned without hedging; failures are retried by the broker.
+   */
+  public <T> Mono<T> hedge(Mono<T> call) {
+    if (!enabled) {
+      return call;
+    }
+    return Mono.defer(
+        () -> {
+          long start = System.nanoTime();
+          long delay = nextDelayNanos();
+          if (delay < 0) {
+            return call.doOnSuccess(value -> recordLatency(System.nanoTime() - start));
+          }
+          Sinks.One<Boolean> primaryFailed = Sinks.one();
+          AtomicReference<Throwable> primaryError = new AtomicReference<>();
+          AtomicBoolean hedgeSent = new AtomicBoolean();
+          Mono<Attempt<T>> primary =
+              call.map(value -> new Attempt<>(value, false))
+                  .doOnError(
+                      error -> {
+                        primaryError.set(error);
+                        primaryFailed.tryEmitValue(true);
+                      });
+          Mono<Attempt<T>> hedge =
+              Mono.delay(Duration.ofNanos(delay))
+                  .takeUntilOther(primaryFailed.asMono())
+                  .filter(tick -> tryStartHedge())
+                  .doOnNext(tick -> hedgeSent.set(true))
+                  .flatMap(tick -> call.map(value -> new Attempt<>(value, true)));
+          return Mono.firstWithValue(primary, hedge)
+              .map(
+                  attempt -> {
+                    recordLatency(System.nanoTime() - start);
+                    if (attempt.hedge()) {
+                      hedgeWins.increment();
+                    } else if (hedgeSent.get()) {
+                      primaryWins.increment();
+                    }
+                    return attempt.value();
+                  })
+              // Without a winner, report why the first call failed rather than that none answered
+              .onErrorMap(
+                  NoSuchElementException.class,
+                  error -> primaryError.get() != null ? primaryError.get() : error);
+        });
+  }
+
+  public HedgingStats getStats() {
+    long callCount = (long) calls.count();
+    long hedgeCount = (long) hedges.count();
+    return HedgingStats.builder()
+        .enabled(enabled)
+        .calls(callCount)
+        .hedges(hedgeCount)
+        .hedgeRate(callCount == 0 ? 0 : (double) hedgeCount / callCount)
+        .primaryWins((long) primaryWins.count())
+        .hedgeWins((long) hedgeWins.count())
+        .skippedForBudget((long) skippedBudget.count())
+        .skippedForQuota((long) skippedQuota.count())
+        .delayMillis(Math.max(currentDelayNanos(), 0) / 1_000_000)
+        .build();
+  }
+
+  // Adds this call's share to the budget and returns the hedge delay, or -1 while there are too
+  // few samples to know what slow means
+  private synchronized long nextDelayNanos() {
+    calls.increment();
+    budget = Math.min(maxBudget, budget + budgetRatio);
+    return currentDelayNanos();
+  }
+
+  private synchronized long currentDelayNanos() {
+    return delayNanos;
+  }
+
+  private boolean tryStartHedge() {
+    synchronized (this) {
+      if (budget < 1) {
+        skippedBudget.increment();
+        return false;
+      }
+      // A hedge that would wait for the rate limiter arrives too late to help
+      if (!geminiRateLimiter.tryAcquire()) {
+        skippedQuota.increment();
+        return false;
+      }
+      budget -= 1;
+    }
+    hedges.increment();
+    log.debug("Hedging Gemini call slower than {} ms", currentDelayNanos() / 1_000_000);
+    return true;
+  }
+
+  private synchronized void recordLatency(long latencyNanos) {
+    latencies[nextLatency] = latencyNanos;
+    nextLatency = (nextLatency + 1) % latencies.length;
+    latencyCount = Math.min(latencyCount + 1, latencies.length);
+    // Sorting the window on every call would cost more than it saves; refresh every 10th of it
+    if (latencyCount >= minSamples
+        && (delayNanos < 0 || nextLatency % Math.max(latencies.length / 10, 1) == 0)) {
+      long[] sorted = Arrays.copyOf(latencies, latencyCount);
+      Arrays.sort(sorted);
+      int index = (int) Math.ceil(percentile / 100 * latencyCount) - 1;
+      delayNanos = Math.max(minDelayNanos, sorted[Math.clamp(index, 0, latencyCount - 1)]);
+    }
+  }
+
+  private record Attempt<T>(T value, boolean hedge) {}
+}
@@ -0,0 +1,59 @@
+package com.fitness.ai_service.client.gemini;
+
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking token bucket that keeps Gemini calls within the API quota. Each {@link #acquire()}
+ * reserves the next free slot and completes once that slot is reached, so waiting callers hold a
+ * timer instead of a thread. Up to {@code burst} calls go through immediately after an idle period.
+ */
+@Component
+@Slf4j
+public class GeminiRateLimiter {
+  private final long intervalNanos;
+  private final long burstToleranceNanos;
+
+  // Theoretical arrival time of the next call when the bucket is drained at the steady rate
+  private long nextSlotNanos;
+
+  public GeminiRateLimiter(
+      @Value("${gemini.rate-limit.requests-per-minute:60}") int requestsPerMinute,
+      @Value("${gemini.rate-limit.burst:5}") int burst) {
+    this.intervalNanos = Duration.ofMinutes(1).toNanos() / requestsPerMinute;
+    this.burstToleranceNanos = (Math.max(burst, 1) - 1) * intervalNanos;
+    this.nextSlotNanos = System.nanoTime();
+  }
+
+  public Mono<Void> acquire() {
+    return Mono.defer(
+        () -> {
+          long waitNanos = reserve(System.nanoTime());
+          if (waitNanos == 0) {
+            return Mono.empty();
+          }
+          log.debug("Gemini rate limit reached, delaying call by {} ms", waitNanos / 1_000_000);
+          return Mono.delay(Duration.ofNanos(waitNanos)).then();
+        });
+  }
+
+  /** Takes a slot only if one is free right now, for calls that are not worth waiting for. */
+  public synchronized boolean tryAcquire() {
+    long now = System.nanoTime();
+    long slot = Math.max(nextSlotNanos, now);
+    if (slot - burstToleranceNanos > now) {
+      return false;
+    }
+    nextSlotNanos = slot + intervalNanos;
+    return true;
+  }
+
+  private synchronized long reserve(long now) {
+    long slot = Math.max(nextSlotNanos, now);
+    nextSlotNanos = slot + intervalNanos;
+    return Math.max(0, slot - burstToleranceNanos - now);
+  }
+}
@@ -0,0 +1,244 @@
+package com.fitness.ai_service.client.gemini;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.ai_service.dto.ActivityObject;
+import com.fitness.ai_service.model.Recommendation;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-pass parser for Gemini answers. Both the response envelope and the analysis JSON inside it
+ * are read with Jackson's streaming parser, straight into the fields of a {@link Recommendation},
+ * without building intermediate trees or copies of the text. The analysis may be wrapped in a
+ * markdown code fence or surrounded by prose: parsing starts at the first '{' (or '[' for batched
+ * answers) and stops at the end of that value.
+ */
+@Component
+public class GeminiResponseParser {
+  static final String NO_ANALYSIS = "No detailed analysis provided";
+  static final List<String> NO_IMPROVEMENTS = List.of("No improvements suggested");
+  static final List<String> NO_SUGGESTIONS = List.of("No workout suggestions provided");
+  static final List<String> NO_SAFETY =
+      List.of("Follow general safety guidelines for your activity type");
+
+  private final JsonFactory jsonFactory;
+
+  public GeminiResponseParser(ObjectMapper objectMapper) {
+    this.jsonFactory = objectMapper.getFactory();
+  }
+
+  /**
+   * Returns the text of the first part of the first candidate. Reading stops there, so the rest of
+   * the envelope (other candidates, safety ratings, usage metadata) is never tokenized.
+   */
+  public String extractText(String geminiResponse) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(geminiResponse)) {
+      if (parser.nextToken() == JsonToken.START_OBJECT
+          && moveToField(parser, "candidates", JsonToken.START_ARRAY)
+          && parser.nextToken() == JsonToken.START_OBJECT
+          && moveToField(parser, "content", JsonToken.START_OBJECT)
+          && moveToField(parser, "parts", JsonToken.START_ARRAY)
+          && parser.nextToken() == JsonToken.START_OBJECT
+          && moveToField(parser, "text", JsonToken.VALUE_STRING)) {
+        return parser.getText();
+      }
+    }
+    throw new IllegalStateException("Invalid Gemini response format");
+  }
+
+  /** Parses a single-activity analysis into a recommendation for the activity. */
+  public Recommendation parseAnalysis(String analysisText, ActivityObject activity)
+      throws IOException {
+    try (JsonParser parser = createParser(analysisText, '{')) {
+      parser.nextToken();
+      return toRecommendation(readAnalysis(parser), activity);
+    }
+  }
+
+  /**
+   * Parses a batched answer, a JSON array of analyses that each carry an {@code activityId}, into
+   * one recommendation per activity, in order. Activities without an analysis in the answer get
+   * null.
+   */
+  public List<Recommendation> parseBatch(String analysisText, List<ActivityObject> activities)
+      throws IOException {
+    Map<String, Analysis> analysesById = new HashMap<>();
+    try (JsonParser parser = createParser(analysisText, '[')) {
+      parser.nextToken();
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+          parser.skipChildren();
+          continue;
+        }
+        Analysis analysis = readAnalysis(parser);
+        if (analysis.activityId != null && analysis.hasAnalysis) {
+          analysesById.put(analysis.activityId, analysis);
+        }
+      }
+    }
+
+    List<Recommendation> recommendations = new ArrayList<>(activities.size());
+    for (ActivityObject activity : activities) {
+      Analysis analysis = analysesById.get(activity.getId());
+      recommendations.add(analysis != null ? toRecommendation(analysis, activity) : null);
+    }
+    return recommendations;
+  }
+
+  // Reads from the first occurrence of start without copying the text, so a leading ```json fence
+  // or sentence is skipped and anything after the value, such as the closing fence, is never read
+  private JsonParser createParser(String text, char start) throws IOException {
+    int offset = text.indexOf(start);
+    if (offset < 0) {
+      throw new IllegalStateException("No JSON " + start + " found in Gemini answer");
+    }
+    StringReader reader = new StringReader(text);
+    reader.skip(offset);
+    return jsonFactory.createParser(reader);
+  }
+
+  // Advances through the fields of the current object to the named one and returns whether its
+  // value has the expected token; other fields are skipped without being materialized
+  private static boolean moveToField(JsonParser parser, String name, JsonToken expected)
+      throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      boolean match = name.equals(parser.currentName());
+      JsonToken value = parser.nextToken();
+      if (match) {
+        return value == expected;
+      }
+      parser.skipChildren();
+    }
+    return false;
+  }
+
+  private static Analysis readAnalysis(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw new JsonParseException(parser, "Expected an analysis object");
+    }
+    Analysis analysis = new Analysis();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+      switch (field) {
+        case "activityId" -> analysis.activityId = scalarText(parser);
+        case "analysis" -> {
+          analysis.hasAnalysis = true;
+          analysis.overall = readOverall(parser);
+        }
+        case "improvements" -> analysis.improvements = readItemField(parser, "recommendation");
+        case "suggestions" -> analysis.suggestions = readItemField(parser, "description");
+        case "safety" -> analysis.safety = readScalars(parser);
+        default -> parser.skipChildren();
+      }
+    }
+    return analysis;
+  }
+
+  private static String readOverall(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return null;
+    }
+    String overall = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+      if ("overall".equals(field)) {
+        overall = scalarText(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return overall;
+  }
+
+  // Collects one text field from each object in an array, e.g. improvements[*].recommendation
+  private static List<String> readItemField(JsonParser parser, String name) throws IOException {
+    List<String> values = new ArrayList<>();
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return values;
+    }
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        if (name.equals(field)) {
+          addIfPresent(values, scalarText(parser));
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    return values;
+  }
+
+  private static List<String> readScalars(JsonParser parser) throws IOException {
+    List<String> values = new ArrayList<>();
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return values;
+    }
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      addIfPresent(values, scalarText(parser));
+    }
+    return values;
+  }
+
+  // Numbers and booleans are kept as text; objects and arrays are skipped
+  private static String scalarText(JsonParser parser) throws IOException {
+    if (parser.currentToken().isScalarValue()) {
+      return parser.getValueAsString();
+    }
+    parser.skipChildren();
+    return null;
+  }
+
+  private static void addIfPresent(List<String> values, String value) {
+    if (value != null && !value.isBlank()) {
+      values.add(value);
+    }
+  }
+
+  private static Recommendation toRecommendation(Analysis analysis, ActivityObject activity) {
+    return Recommendation.builder()
+        .activityId(activity.getId())
+        .keycloakId(activity.getKeycloakId())
+        .type(activity.getType())
+        .recommendation(
+            analysis.overall != null && !analysis.overall.isBlank()
+                ? analysis.overall
+                : NO_ANALYSIS)
+        .improvements(orDefault(analysis.improvements, NO_IMPROVEMENTS))
+        .suggestions(orDefault(analysis.suggestions, NO_SUGGESTIONS))
+        .safety(orDefault(analysis.safety, NO_SAFETY))
+        .build();
+  }
+
+  private static List<String> orDefault(List<String> values, List<String> fallback) {
+    return values == null || values.isEmpty() ? fallback : values;
+  }
+
+  private static final class Analysis {
+    private String activityId;
+    private boolean hasAnalysis;
+    private String overall;
+    private List<String> improvements;
+    private List<String> suggestions;
+    private List<String> safety;
+  }
+}
@@ -1,12 +1,24 @@
 package com.fitness.ai_service.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.core.Queue;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -22,6 +34,33 @@ public class RabbitMqConfig {
   @Value("${rabbitmq.routing.key}")
   private String routingKey;
 
+  @Value("${rabbitmq.bulk-queue.name:activity.bulk.queue}")
+  private String bulkQueue;
+
+  @Value("${rabbitmq.bulk-routing.key:activity.tracking.bulk}")
+  private String bulkRoutingKey;
+
+  @Value("${rabbitmq.recommendation-events.exchange:recommendation.ready}")
+  private String recommendationEventsExchange;
+
+  @Value("${rabbitmq.recommendation-stream.exchange:recommendation.stream}")
+  private String recommendationStreamExchange;
+
+  @Value("${rabbitmq.message-format:json}")
+  private String messageFormat;
+
+  @Value("${ai.retry.delays:10s,1m,5m}")
+  private List<Duration> retryDelays;
+
+  @Value("${ai.pipeline.concurrency:2}")
+  private int concurrency;
+
+  @Value("${ai.pipeline.prefetch:50}")
+  private int prefetch;
+
+  @Value("${ai.pipeline.bulk-prefetch:200}")
+  private int bulkPrefetch;
+
   @Bean
   public Queue activityQueue() {
     return new Queue(queue, true);
@@ -38,7 +77,118 @@ public class RabbitMqConfig {
   }
 
   @Bean
-  public MessageConverter jsonMessageConverter() {
-    return new Jackson2JsonMessageConverter();
+  public Queue bulkActivityQueue() {
+    return new Queue(bulkQueue, true);
+  }
+
+  @Bean
+  public Binding bulkActivityBinding(Queue bulkActivityQueue, DirectExchange activityExchange) {
+    return BindingBuilder.bind(bulkActivityQueue).to(activityExchange).with(bulkRoutingKey);
+  }
+
+  // Every instance gets every recommendation-ready event through its own server-named queue, which
+  // the broker deletes when the instance disconnects, and passes it on to its SSE subscribers
+  @Bean
+  public FanoutExchange recommendationEventsExchange() {
+    return new FanoutExchange(recommendationEventsExchange);
+  }
+
+  @Bean
+  public Queue recommendationEventsQueue() {
+    return new AnonymousQueue();
+  }
+
+  @Bean
+  public Binding recommendationEventsBinding(
+      Queue recommendationEventsQueue, FanoutExchange recommendationEventsExchange) {
+    return BindingBuilder.bind(recommendationEventsQueue).to(recommendationEventsExchange);
+  }
+
+  // Same for the per-activity stream events, so a client can follow an activity from any instance
+  @Bean
+  public FanoutExchange recommendationStreamExchange() {
+    return new FanoutExchange(recommendationStreamExchange);
+  }
+
+  @Bean
+  public Queue recommendationStreamQueue() {
+    return new AnonymousQueue();
+  }
+
+  @Bean
+  public Binding recommendationStreamBinding(
+      Queue recommendationStreamQueue, FanoutExchange recommendationStreamExchange) {
+    return BindingBuilder.bind(recommendationStreamQueue).to(recommendationStreamExchange);
+  }
+
+  // One queue per delay: a TTL queue only expires messages at its head, so mixing delays in one
+  // queue would hold short delays behind long ones. Expired messages are dead-lettered through the
+  // default exchange straight back to the queue they were consumed from, without touching
+  // fitness.exchange. Both lanes share the parking queue.
+  @Bean
+  public Declarables activityRetryQueues() {
+    List<Declarable> queues = new ArrayList<>();
+    for (String source : List.of(queue, bulkQueue)) {
+      for (Duration delay : retryDelays) {
+        queues.add(
+            QueueBuilder.durable(retryQueueName(source, delay))
+                .ttl(Math.toIntExact(delay.toMillis()))
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(source)
+                .build());
+      }
+    }
+    queues.add(QueueBuilder.durable(parkingQueueName(queue)).build());
+    return new Declarables(queues);
+  }
+
+  // The delay is part of the name because RabbitMQ refuses to redeclare a queue with another TTL
+  public static String retryQueueName(String queue, Duration delay) {
+    return queue + ".retry." + delay.toMillis() + "ms";
+  }
+
+  public static String parkingQueueName(String queue) {
+    return queue + ".parking";
+  }
+
+  // Reads both JSON and CBOR; writes the format configured by rabbitmq.message-format
+  @Bean
+  public MessageConverter activityMessageConverter() {
+    return new VersionedMessageConverter(
+        "cbor".equalsIgnoreCase(messageFormat)
+            ? CborMessageConverter.CONTENT_TYPE
+            : MessageProperties.CONTENT_TYPE_JSON);
+  }
+
+  // The listener returns a Mono, so messages are acked when their recommendation is stored rather
+  // than when the consumer thread returns. Prefetch therefore bounds the number of activities in
+  // flight per consumer, and the Gemini rate limiter, not the thread count, sets the throughput.
+  @Bean
+  public SimpleRabbitListenerContainerFactory activityListenerContainerFactory(
+      SimpleRabbitListenerContainerFactoryConfigurer configurer,
+      ConnectionFactory connectionFactory) {
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    configurer.configure(factory, connectionFactory);
+    factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+    factory.setConcurrentConsumers(concurrency);
+    factory.setMaxConcurrentConsumers(concurrency);
+    factory.setPrefetchCount(prefetch);
+    return factory;
+  }
+
+  // FairActivityScheduler can only interleave users among delivered messages, so the bulk lane
+  // takes a deep prefetch on a single consumer: an import by one user then does not hide the
+  // imports of other users behind it in the queue.
+  @Bean
+  public SimpleRabbitListenerContainerFactory bulkActivityListenerContainerFactory(
+      SimpleRabbitListenerContainerFactoryConfigurer configurer,
+      ConnectionFactory connectionFactory) {
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    configurer.configure(factory, connectionFactory);
+    factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+    factory.setConcurrentConsumers(1);
+    factory.setMaxConcurrentConsumers(1);
+    factory.setPrefetchCount(bulkPrefetch);
+    return factory;
   }
 }
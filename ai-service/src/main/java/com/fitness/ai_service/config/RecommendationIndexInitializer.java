@@ -0,0 +1,71 @@
+package com.fitness.ai_service.config;
+
+import com.fitness.ai_service.model.Recommendation;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the unique {@code activity_id_idx} on recommendations. It is not declared on {@link
+ * Recommendation}, because auto index creation fails at startup while older duplicate documents
+ * exist. Before the index is built, only the newest document per {@code activityId} is kept. Runs
+ * before the listeners start consuming, and only until the index exists.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecommendationIndexInitializer {
+  static final String ACTIVITY_ID_INDEX = "activity_id_idx";
+
+  private final MongoTemplate mongoTemplate;
+
+  @PostConstruct
+  void createActivityIdIndex() {
+    IndexOperations indexOps = mongoTemplate.indexOps(Recommendation.class);
+    if (indexOps.getIndexInfo().stream()
+        .anyMatch(index -> ACTIVITY_ID_INDEX.equals(index.getName()))) {
+      return;
+    }
+    long removed = removeDuplicates();
+    indexOps.createIndex(
+        new Index().on("activityId", Sort.Direction.ASC).named(ACTIVITY_ID_INDEX).unique());
+    log.info("Created {} after removing {} duplicate recommendations", ACTIVITY_ID_INDEX, removed);
+  }
+
+  // Groups the ids per activity newest first and deletes all but the first of each group
+  private long removeDuplicates() {
+    Aggregation aggregation =
+        Aggregation.newAggregation(
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "updatedAt", "id")),
+                Aggregation.group("activityId").push("id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)))
+            .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+    long removed = 0;
+    for (Document group :
+        mongoTemplate.aggregate(aggregation, Recommendation.class, Document.class)) {
+      List<Object> ids = group.getList("ids", Object.class);
+      removed +=
+          mongoTemplate
+              .remove(
+                  Query.query(Criteria.where("id").in(ids.subList(1, ids.size()))),
+                  Recommendation.class)
+              .getDeletedCount();
+      log.info(
+          "Removed {} older duplicate recommendations for activity={}",
+          ids.size() - 1,
+          group.get("_id"));
+    }
+    return removed;
+  }
+}
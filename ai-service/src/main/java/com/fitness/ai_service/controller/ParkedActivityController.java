@@ -0,0 +1,39 @@
+package com.fitness.ai_service.controller;
+
+import com.fitness.ai_service.dto.ParkedActivity;
+import com.fitness.ai_service.dto.ParkedActivityReplay;
+import com.fitness.ai_service.service.ParkedActivityService;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+// Activities that failed all their attempts; under /api/recommendations so the gateway routes here,
+// and under admin so the gateway only lets operators with the admin role through
+@RestController
+@RequestMapping("/api/recommendations/admin/parked")
+@AllArgsConstructor
+public class ParkedActivityController {
+  private final ParkedActivityService parkedActivityService;
+
+  @GetMapping
+  public ResponseEntity<List<ParkedActivity>> getParkedActivities(
+      @RequestParam(defaultValue = "20") int limit) {
+    return ResponseEntity.ok(parkedActivityService.listParked(limit));
+  }
+
+  @GetMapping("/count")
+  public ResponseEntity<Long> countParkedActivities() {
+    return ResponseEntity.ok(parkedActivityService.countParked());
+  }
+
+  @PostMapping("/replay")
+  public ResponseEntity<ParkedActivityReplay> replayParkedActivities(
+      @RequestParam(defaultValue = "100") int limit) {
+    return ResponseEntity.ok(parkedActivityService.replay(limit));
+  }
+}
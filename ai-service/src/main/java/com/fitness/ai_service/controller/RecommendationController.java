@@ -1,15 +1,25 @@
 package com.fitness.ai_service.controller;
 
 import com.fitness.ai_service.client.gemini.GeminiClient;
+import com.fitness.ai_service.dto.CacheHitStats;
+import com.fitness.ai_service.dto.HedgingStats;
+import com.fitness.ai_service.dto.RecommendationPageResponse;
+import com.fitness.ai_service.dto.RuleRoutingStats;
 import com.fitness.ai_service.model.Recommendation;
 import com.fitness.ai_service.service.RecommendationService;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/recommendations")
@@ -25,10 +35,56 @@ public class RecommendationController {
     return ResponseEntity.ok(recommendations);
   }
 
+  @GetMapping("/getUserRecommendations/{keycloakId}/page")
+  public ResponseEntity<RecommendationPageResponse> getUserRecommendationPage(
+      @PathVariable String keycloakId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int size) {
+    return ResponseEntity.ok(
+        recommendationService.getUserRecommendationPage(keycloakId, cursor, size));
+  }
+
+  // Served from the read cache; Spring answers 304 Not Modified when If-None-Match has this ETag
   @GetMapping("/getActivityRecommendations/{activityId}")
   public ResponseEntity<Recommendation> getActivityRecommendation(@PathVariable String activityId) {
     Recommendation recommendation = recommendationService.getActivityRecommendations(activityId);
-    return ResponseEntity.ok(recommendation);
+    if (recommendation == null) {
+      return ResponseEntity.ok(null);
+    }
+    return ResponseEntity.ok().eTag(eTag(recommendation)).body(recommendation);
+  }
+
+  // Server-sent events: overall, improvements, suggestions and safety as Gemini generates them,
+  // then complete (the stored recommendation) or error
+  @GetMapping(value = "/stream/{activityId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<Object>> streamActivityRecommendation(
+      @PathVariable String activityId) {
+    return recommendationService.streamActivityRecommendation(activityId);
+  }
+
+  // Server-sent events: ready, with the stored recommendation, whenever one of the user's
+  // activities has been processed. Replaces polling getUserRecommendations while any are pending.
+  @GetMapping(value = "/events/{keycloakId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<Object>> streamUserRecommendationEvents(
+      @PathVariable String keycloakId) {
+    return recommendationService.streamUserRecommendationEvents(keycloakId);
+  }
+
+  @GetMapping("/cache/stats")
+  public ResponseEntity<List<CacheHitStats>> getCacheStats() {
+    return ResponseEntity.ok(recommendationService.getCacheStats());
+  }
+
+  // How many activities the rule engine answered per type, and why the rest went to Gemini
+  @GetMapping("/rules/stats")
+  public ResponseEntity<List<RuleRoutingStats>> getRuleRoutingStats() {
+    return ResponseEntity.ok(recommendationService.getRuleRoutingStats());
+  }
+
+  // How often slow Gemini calls were hedged, and whether the hedge or the original answered first
+  @GetMapping("/hedging/stats")
+  public ResponseEntity<HedgingStats> getHedgingStats() {
+    return ResponseEntity.ok(recommendationService.getHedgingStats());
   }
 
   /**
@@ -42,4 +98,12 @@ public class RecommendationController {
     String answer = geminiClient.getAnswer(question);
     return ResponseEntity.ok(answer);
   }
+
+  private static String eTag(Recommendation recommendation) {
+    LocalDateTime updatedAt = recommendation.getUpdatedAt();
+    return "\""
+        + recommendation.getId()
+        + (updatedAt != null ? "-" + updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : "")
+        + "\"";
+  }
 }
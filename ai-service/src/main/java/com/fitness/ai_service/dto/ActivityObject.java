@@ -13,6 +13,8 @@ public class ActivityObject {
   private Integer caloriesBurned;
   private LocalDateTime startTime;
   private Map<String, Object> additionalMetrics;
+  // Summaries of high-frequency sensor series; the raw samples stay in activity-service
+  private Map<String, SampleSeriesSummary> sampleSummaries;
   private LocalDateTime createdAt;
   private LocalDateTime updatedAt;
 }
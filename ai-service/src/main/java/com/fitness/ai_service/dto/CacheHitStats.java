@@ -0,0 +1,20 @@
+package com.fitness.ai_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheHitStats {
+  private ActivityObjectType type;
+  private long memoryHits;
+  private long persistentHits;
+  // Lookups that waited for an identical activity's Gemini call instead of making their own
+  private long coalesced;
+  private long misses;
+  private double hitRatio;
+}
@@ -0,0 +1,25 @@
+package com.fitness.ai_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HedgingStats {
+  private boolean enabled;
+  private long calls;
+  private long hedges;
+  // Extra Gemini calls sent as hedges, per call
+  private double hedgeRate;
+  // Among hedged calls, which request answered first
+  private long primaryWins;
+  private long hedgeWins;
+  private long skippedForBudget;
+  private long skippedForQuota;
+  // Current hedge delay, the configured percentile of recent call durations
+  private long delayMillis;
+}
@@ -0,0 +1,18 @@
+package com.fitness.ai_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParkedActivity {
+  // Null if the message body could not be decoded
+  private ActivityObject activity;
+  private int attempts;
+  private String lastError;
+  private String parkedAt;
+}
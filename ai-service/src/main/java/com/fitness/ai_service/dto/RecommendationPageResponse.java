@@ -0,0 +1,18 @@
+package com.fitness.ai_service.dto;
+
+import com.fitness.ai_service.model.Recommendation;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecommendationPageResponse {
+  private List<Recommendation> items;
+  // Opaque cursor for the next page; null when there are no more recommendations
+  private String nextCursor;
+}
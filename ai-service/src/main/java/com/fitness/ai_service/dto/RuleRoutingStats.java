@@ -0,0 +1,21 @@
+package com.fitness.ai_service.dto;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RuleRoutingStats {
+  private ActivityObjectType type;
+  // Recommendations produced by the rule engine without calling Gemini
+  private long local;
+  private long gemini;
+  private double localRatio;
+  // Why activities went to Gemini, e.g. speed-out-of-range or unknown-metric
+  private Map<String, Long> geminiReasons;
+}
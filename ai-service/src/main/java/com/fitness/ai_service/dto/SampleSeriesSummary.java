@@ -0,0 +1,14 @@
+package com.fitness.ai_service.dto;
+
+import lombok.Data;
+
+@Data
+public class SampleSeriesSummary {
+  private int count;
+  private double min;
+  private double max;
+  private double mean;
+  private long startOffsetMillis;
+  private long endOffsetMillis;
+  private int chunks;
+}
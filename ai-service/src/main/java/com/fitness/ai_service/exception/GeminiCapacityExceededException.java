@@ -0,0 +1,9 @@
+package com.fitness.ai_service.exception;
+
+// An activity waited longer than its lane allows for a Gemini slot; it goes back to the broker
+// instead of holding memory and a prefetch slot here
+public class GeminiCapacityExceededException extends RuntimeException {
+  public GeminiCapacityExceededException(String message) {
+    super(message);
+  }
+}
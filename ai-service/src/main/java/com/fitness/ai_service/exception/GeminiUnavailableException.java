@@ -0,0 +1,8 @@
+package com.fitness.ai_service.exception;
+
+// Gemini's circuit breaker is open; the activity is spooled for later instead of being retried
+public class GeminiUnavailableException extends RuntimeException {
+  public GeminiUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,9 @@
+package com.fitness.ai_service.exception;
+
+// Gemini answered but the answer could not be parsed; another attempt would most likely fail the
+// same way, so the activity is parked instead of retried
+public class RecommendationParseException extends RuntimeException {
+  public RecommendationParseException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
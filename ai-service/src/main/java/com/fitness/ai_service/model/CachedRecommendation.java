@@ -0,0 +1,34 @@
+package com.fitness.ai_service.model;
+
+import com.fitness.ai_service.dto.ActivityObjectType;
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Persisted tier of the recommendation cache, keyed by the activity's feature fingerprint. Mongo's
+// TTL monitor removes entries once expiresAt has passed.
+@Document(collection = "recommendation_cache")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CachedRecommendation {
+  @Id private String fingerprint;
+  // The normalized features the fingerprint was computed from, kept for debugging
+  private String features;
+  private ActivityObjectType type;
+  private String recommendation;
+  private List<String> improvements;
+  private List<String> suggestions;
+  private List<String> safety;
+  private Instant createdAt;
+
+  @Indexed(name = "expires_at_ttl_idx", expireAfter = "0s")
+  private Instant expiresAt;
+}
@@ -10,16 +10,22 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+// keycloak_id_idx serves a user's recommendations newest first, including keyset pages by _id
 @Document(collection = "recommendations")
+@CompoundIndex(name = "keycloak_id_idx", def = "{'keycloakId': 1, '_id': -1}")
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class Recommendation {
   @Id private String id;
+
+  // Unique activity_id_idx, created by RecommendationIndexInitializer
   private String activityId;
+
   private String keycloakId;
   private ActivityObjectType type;
   private String recommendation;
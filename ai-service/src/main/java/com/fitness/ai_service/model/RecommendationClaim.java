@@ -0,0 +1,28 @@
+package com.fitness.ai_service.model;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Marks an activity whose recommendation is being generated by one consumer, so that a redelivery
+// or duplicate publish picked up by another consumer does not call Gemini for it again. The claim
+// is a lease: once expiresAt has passed, e.g. because its owner crashed, another consumer may take
+// it over, and Mongo's TTL monitor eventually removes it.
+@Document(collection = "recommendation_claims")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecommendationClaim {
+  @Id private String activityId;
+  private String owner;
+  private Instant claimedAt;
+
+  @Indexed(name = "expires_at_ttl_idx", expireAfter = "0s")
+  private Instant expiresAt;
+}
@@ -0,0 +1,9 @@
+package com.fitness.ai_service.repository;
+
+import com.fitness.ai_service.model.RecommendationClaim;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RecommendationClaimRepository
+    extends MongoRepository<RecommendationClaim, String>, RecommendationClaimRepositoryCustom {}
@@ -0,0 +1,15 @@
+package com.fitness.ai_service.repository;
+
+import java.time.Duration;
+
+public interface RecommendationClaimRepositoryCustom {
+
+  /**
+   * Claims the activity for {@code owner} for the given lease. Returns false when another owner
+   * holds an unexpired claim on it.
+   */
+  boolean tryClaim(String activityId, String owner, Duration lease);
+
+  /** Drops the claim if {@code owner} still holds it. */
+  void release(String activityId, String owner);
+}
@@ -0,0 +1,52 @@
+package com.fitness.ai_service.repository;
+
+import com.fitness.ai_service.model.RecommendationClaim;
+import java.time.Duration;
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@RequiredArgsConstructor
+public class RecommendationClaimRepositoryCustomImpl
+    implements RecommendationClaimRepositoryCustom {
+  private final MongoTemplate mongoTemplate;
+
+  @Override
+  public boolean tryClaim(String activityId, String owner, Duration lease) {
+    Instant now = Instant.now();
+    try {
+      mongoTemplate.insert(
+          RecommendationClaim.builder()
+              .activityId(activityId)
+              .owner(owner)
+              .claimedAt(now)
+              .expiresAt(now.plus(lease))
+              .build());
+      return true;
+    } catch (DuplicateKeyException e) {
+      // Taken; it can only be taken over once the lease has run out. The TTL monitor runs once a
+      // minute, so an expired claim may still be there.
+      return mongoTemplate
+              .updateFirst(
+                  Query.query(Criteria.where("_id").is(activityId).and("expiresAt").lt(now)),
+                  new Update()
+                      .set("owner", owner)
+                      .set("claimedAt", now)
+                      .set("expiresAt", now.plus(lease)),
+                  RecommendationClaim.class)
+              .getModifiedCount()
+          == 1;
+    }
+  }
+
+  @Override
+  public void release(String activityId, String owner) {
+    mongoTemplate.remove(
+        Query.query(Criteria.where("_id").is(activityId).and("owner").is(owner)),
+        RecommendationClaim.class);
+  }
+}
@@ -3,13 +3,23 @@ package com.fitness.ai_service.repository;
 import com.fitness.ai_service.model.Recommendation;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface RecommendationRepository extends MongoRepository<Recommendation, String> {
+public interface RecommendationRepository
+    extends MongoRepository<Recommendation, String>, RecommendationRepositoryCustom {
 
   Optional<Recommendation> findByActivityId(String activityId);
 
+  boolean existsByActivityId(String activityId);
+
   List<Recommendation> findByKeycloakId(String keycloakId);
+
+  // Keyset pages, newest first; ObjectIds grow with insertion time
+  List<Recommendation> findByKeycloakIdOrderByIdDesc(String keycloakId, Limit limit);
+
+  List<Recommendation> findByKeycloakIdAndIdLessThanOrderByIdDesc(
+      String keycloakId, String afterId, Limit limit);
 }
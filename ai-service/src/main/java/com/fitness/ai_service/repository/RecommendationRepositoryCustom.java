@@ -0,0 +1,13 @@
+package com.fitness.ai_service.repository;
+
+import com.fitness.ai_service.model.Recommendation;
+
+public interface RecommendationRepositoryCustom {
+
+  /**
+   * Stores the recommendation as the one for its activity in a single atomic operation: inserted if
+   * the activity has none yet, otherwise its content replaces the stored one, keeping the id and
+   * createdAt. Returns the stored document.
+   */
+  Recommendation upsertByActivityId(Recommendation recommendation);
+}
@@ -0,0 +1,38 @@
+package com.fitness.ai_service.repository;
+
+import com.fitness.ai_service.model.Recommendation;
+import java.time.LocalDateTime;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@RequiredArgsConstructor
+public class RecommendationRepositoryCustomImpl implements RecommendationRepositoryCustom {
+  private final MongoTemplate mongoTemplate;
+
+  // Auditing does not apply to updates, so the timestamps are set here. With the unique
+  // activity_id_idx, MongoDB retries an upsert that loses an insert race as an update, so
+  // concurrent upserts for one activity still leave a single document.
+  @Override
+  public Recommendation upsertByActivityId(Recommendation recommendation) {
+    LocalDateTime now = LocalDateTime.now();
+    Update update =
+        new Update()
+            .set("type", recommendation.getType())
+            .set("recommendation", recommendation.getRecommendation())
+            .set("improvements", recommendation.getImprovements())
+            .set("suggestions", recommendation.getSuggestions())
+            .set("safety", recommendation.getSafety())
+            .set("updatedAt", now)
+            .setOnInsert("keycloakId", recommendation.getKeycloakId())
+            .setOnInsert("createdAt", now);
+    return mongoTemplate.findAndModify(
+        Query.query(Criteria.where("activityId").is(recommendation.getActivityId())),
+        update,
+        FindAndModifyOptions.options().upsert(true).returnNew(true),
+        Recommendation.class);
+  }
+}
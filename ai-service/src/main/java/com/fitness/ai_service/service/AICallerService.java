@@ -1,218 +1,228 @@
 package com.fitness.ai_service.service;
 
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.ai_service.client.gemini.GeminiCircuitBreaker;
 import com.fitness.ai_service.client.gemini.GeminiClient;
+import com.fitness.ai_service.client.gemini.GeminiRateLimiter;
+import com.fitness.ai_service.client.gemini.GeminiResponseParser;
 import com.fitness.ai_service.dto.ActivityObject;
+import com.fitness.ai_service.exception.GeminiUnavailableException;
 import com.fitness.ai_service.exception.RecommendationGenerationException;
+import com.fitness.ai_service.exception.RecommendationParseException;
 import com.fitness.ai_service.model.Recommendation;
-import java.util.ArrayList;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class AICallerService {
   private final GeminiClient geminiClient;
+  private final GeminiResponseParser geminiResponseParser;
   private final ObjectMapper objectMapper;
-
-  //  NOTE: It is unfeasible to do infinite retries for failures due to API cost limitations. Hence,
-  // we implement a max 3 retries with exponential backoff.
-  @Retryable(
-      retryFor = {WebClientResponseException.class, RuntimeException.class},
-      noRetryFor = {IllegalArgumentException.class, JsonParseException.class},
-      maxAttempts = 3,
-      backoff = @Backoff(delay = 1000, multiplier = 2, maxDelay = 15000))
-  public Recommendation generateRecommendation(ActivityObject activity) {
-    log.info("Generating recommendation for activity={}", activity.getId());
-
-    try {
-      String prompt = createPromptForActivity(activity);
-      String aiResponse = geminiClient.getAnswer(prompt);
-      Recommendation recommendation = parseGeminiResponse(aiResponse, activity);
-
-      log.info("Successfully generated recommendation for activity={}", activity.getId());
-      return recommendation;
-    } catch (Exception e) {
-      log.error(
-          "Error generating recommendation for activity={}: {}", activity.getId(), e.getMessage());
-      throw e; // Let @Retryable handle the retry
+  private final GeminiRateLimiter geminiRateLimiter;
+  private final RecommendationCache recommendationCache;
+  private final RecommendationStreamHub recommendationStreamHub;
+  private final FairActivityScheduler fairActivityScheduler;
+  private final RuleBasedRecommender ruleBasedRecommender;
+  private final GeminiCircuitBreaker geminiCircuitBreaker;
+
+  @Value("${gemini.streaming.enabled:true}")
+  private boolean streamingEnabled;
+
+  @Value("${ai.batching.enabled:false}")
+  private boolean batchingEnabled;
+
+  @Value("${ai.batching.max-size:5}")
+  private int batchMaxSize;
+
+  @Value("${ai.batching.max-wait:500ms}")
+  private Duration batchMaxWait;
+
+  @Value("${ai.batching.max-concurrent-batches:4}")
+  private int maxConcurrentBatches;
+
+  private MicroBatcher<ActivityObject, Recommendation> batcher;
+
+  @PostConstruct
+  void startBatcher() {
+    if (batchingEnabled) {
+      batcher =
+          new MicroBatcher<>(
+              batchMaxSize,
+              batchMaxWait,
+              maxConcurrentBatches,
+              this::callGeminiBatch,
+              this::callGemini,
+              this::callGeminiAloneIfAvailable);
     }
   }
 
-  @Recover
-  public Recommendation recoverFromFailure(Exception ex, ActivityObject activity) {
-    log.error("All retry attempts failed for activity={}: {}", activity.getId(), ex.getMessage());
-    throw new RecommendationGenerationException(
-        "Failed to generate recommendation after all retries for activity=" + activity.getId(), ex);
+  @PreDestroy
+  void stopBatcher() {
+    if (batcher != null) {
+      batcher.dispose();
+    }
   }
 
-  private Recommendation parseGeminiResponse(String geminiResponse, ActivityObject activity) {
-    try {
-      JsonNode root = objectMapper.readTree(geminiResponse);
-      JsonNode candidates = root.get("candidates");
-
-      if (candidates != null && candidates.isArray() && candidates.size() > 0) {
-        JsonNode content = candidates.get(0).get("content");
-        JsonNode parts = content.get("parts");
-
-        if (parts != null && parts.isArray() && parts.size() > 0) {
-          String textContent = parts.get(0).get("text").asText();
-          String jsonContent = extractJsonFromMarkdown(textContent);
-          JsonNode analysisData = objectMapper.readTree(jsonContent);
-
-          return Recommendation.builder()
-              .activityId(activity.getId())
-              .keycloakId(activity.getKeycloakId())
-              .type(activity.getType())
-              .recommendation(extractRecommendation(analysisData))
-              .improvements(extractImprovements(analysisData))
-              .suggestions(extractSuggestions(analysisData))
-              .safety(extractSafety(analysisData))
-              .build();
-        }
-      }
-
-      throw new IllegalStateException("Invalid Gemini response format");
+  // Routine activities within the rule tables are answered in-process. Nearly identical
+  // activities get the same answer from the cache without calling Gemini. Cache misses wait for
+  // their user's turn in the lane, then go to Gemini one by one, or grouped into batched prompts
+  // when batching is enabled.
+  public Mono<Recommendation> generateRecommendation(
+      ActivityObject activity, FairActivityScheduler.Lane lane) {
+    return Mono.defer(
+        () ->
+            ruleBasedRecommender
+                .recommend(activity)
+                .map(Mono::just)
+                .orElseGet(
+                    () ->
+                        recommendationCache.getOrGenerate(
+                            activity,
+                            () ->
+                                fairActivityScheduler.schedule(
+                                    lane,
+                                    activity.getKeycloakId(),
+                                    () -> callGeminiIfAvailable(activity)))));
+  }
 
-    } catch (Exception e) {
-      log.error("Error parsing Gemini response", e);
-      throw new IllegalStateException("Failed to parse AI response", e);
+  // Checked when the activity's turn comes, so activities queued before the breaker opened are
+  // turned away as well instead of waiting for a call that is bound to fail
+  private Mono<Recommendation> callGeminiIfAvailable(ActivityObject activity) {
+    if (!geminiCircuitBreaker.isCallPermitted()) {
+      return breakerOpen(activity);
     }
+    return batcher != null ? batcher.submit(activity) : callGemini(activity);
   }
 
-  private String extractJsonFromMarkdown(String text) {
-    // Remove markdown code block markers
-    String cleaned = text.trim();
+  // Fallback for an activity the batched answer did not cover. It is not batched again, and is
+  // turned away as well if the breaker opened in the meantime.
+  private Mono<Recommendation> callGeminiAloneIfAvailable(ActivityObject activity) {
+    return geminiCircuitBreaker.isCallPermitted() ? callGemini(activity) : breakerOpen(activity);
+  }
 
-    // Check if it starts with ```json and ends with ```
-    if (cleaned.startsWith("```json")) {
-      cleaned = cleaned.substring(7); // Remove ```json
-    } else if (cleaned.startsWith("```")) {
-      cleaned = cleaned.substring(3); // Remove ```
-    }
+  private static Mono<Recommendation> breakerOpen(ActivityObject activity) {
+    return Mono.error(
+        new GeminiUnavailableException(
+            "Gemini circuit breaker is open, not generating activity=" + activity.getId()));
+  }
 
-    if (cleaned.endsWith("```")) {
-      cleaned = cleaned.substring(0, cleaned.length() - 3); // Remove trailing ```
-    }
+  // A single attempt; failed activities are retried through the broker's delay queues by
+  // ActivityRetryRouter, so nothing here waits for a backoff
+  private Mono<Recommendation> callGemini(ActivityObject activity) {
+    return Mono.defer(
+            () -> {
+              log.info("Generating recommendation for activity={}", activity.getId());
+              String prompt = createPromptForActivity(activity);
+              if (streamingEnabled) {
+                return geminiRateLimiter
+                    .acquire()
+                    .then(streamAnalysis(activity, prompt))
+                    .map(analysisText -> parseAnalysis(analysisText, activity));
+              }
+              return geminiRateLimiter
+                  .acquire()
+                  .then(geminiClient.getAnswerAsync(prompt))
+                  .map(aiResponse -> parseGeminiResponse(aiResponse, activity));
+            })
+        .doOnError(
+            e ->
+                log.error(
+                    "Error generating recommendation for activity={}: {}",
+                    activity.getId(),
+                    e.getMessage()))
+        .doOnNext(
+            recommendation ->
+                log.info("Successfully generated recommendation for activity={}", activity.getId()))
+        .onErrorMap(
+            e -> !(e instanceof RecommendationGenerationException),
+            e ->
+                new RecommendationGenerationException(
+                    "Failed to generate recommendation for activity=" + activity.getId(), e));
+  }
 
-    return cleaned.trim();
+  // Publishes each section of the analysis to the SSE hub as soon as it has been generated, and
+  // returns the complete text once the stream ends so it is parsed exactly like a regular answer
+  private Mono<String> streamAnalysis(ActivityObject activity, String prompt) {
+    return Mono.defer(
+        () -> {
+          StreamingAnalysisParser parser = new StreamingAnalysisParser(objectMapper);
+          return geminiClient
+              .streamAnswer(prompt)
+              .doOnNext(
+                  chunk ->
+                      parser
+                          .feed(chunk)
+                          .forEach(
+                              section ->
+                                  recommendationStreamHub.publishSection(
+                                      activity.getId(), section.name(), section.value())))
+              .collect(Collectors.joining());
+        });
   }
 
-  private String extractRecommendation(JsonNode analysisData) {
-    try {
-      JsonNode analysis = analysisData.get("analysis");
-      if (analysis != null && analysis.has("overall")) {
-        String recommendation = analysis.get("overall").asText();
-        return recommendation != null && !recommendation.trim().isEmpty()
-            ? recommendation
-            : "No detailed analysis provided";
-      }
-    } catch (Exception e) {
-      log.warn("Failed to extract recommendation: {}", e.getMessage());
-    }
-    return "No detailed analysis provided";
+  // One prompt and one rate limiter token for the whole batch. If the call fails, every activity
+  // fails with its error and goes through the broker's retries; activities missing from, or
+  // malformed in, the answer come back as null and are then generated on their own.
+  private Mono<List<Recommendation>> callGeminiBatch(List<ActivityObject> activities) {
+    return Mono.defer(
+            () -> {
+              log.info(
+                  "Generating recommendations for a batch of {} activities", activities.size());
+              String prompt = createPromptForActivities(activities);
+              return geminiRateLimiter.acquire().then(geminiClient.getAnswerAsync(prompt));
+            })
+        .map(aiResponse -> parseGeminiBatchResponse(aiResponse, activities));
   }
 
-  private List<String> extractImprovements(JsonNode analysisData) {
+  private Recommendation parseGeminiResponse(String geminiResponse, ActivityObject activity) {
     try {
-      JsonNode improvements = analysisData.get("improvements");
-      List<String> result = extractStringList(improvements, "recommendation");
-
-      if (result == null || result.isEmpty()) {
-        return List.of("No improvements suggested");
-      }
-
-      // Filter out empty strings
-      List<String> filtered =
-          result.stream().filter(s -> s != null && !s.trim().isEmpty()).toList();
-
-      return filtered.isEmpty() ? List.of("No improvements suggested") : filtered;
-
-    } catch (Exception e) {
-      log.warn("Failed to extract improvements: {}", e.getMessage());
-      return List.of("No improvements suggested");
+      return parseAnalysis(geminiResponseParser.extractText(geminiResponse), activity);
+    } catch (IOException | IllegalStateException e) {
+      log.error("Error parsing Gemini response", e);
+      throw new RecommendationParseException("Failed to parse AI response", e);
     }
   }
 
-  private List<String> extractSuggestions(JsonNode analysisData) {
+  private Recommendation parseAnalysis(String analysisText, ActivityObject activity) {
     try {
-      JsonNode suggestions = analysisData.get("suggestions");
-      List<String> result = extractStringList(suggestions, "description");
-
-      if (result == null || result.isEmpty()) {
-        return List.of("No workout suggestions provided");
-      }
-
-      // Filter out empty strings
-      List<String> filtered =
-          result.stream().filter(s -> s != null && !s.trim().isEmpty()).toList();
-
-      return filtered.isEmpty() ? List.of("No workout suggestions provided") : filtered;
-
+      return geminiResponseParser.parseAnalysis(analysisText, activity);
     } catch (Exception e) {
-      log.warn("Failed to extract suggestions: {}", e.getMessage());
-      return List.of("No workout suggestions provided");
+      log.error("Error parsing Gemini response", e);
+      throw new RecommendationParseException("Failed to parse AI response", e);
     }
   }
 
-  private List<String> extractSafety(JsonNode analysisData) {
+  private List<Recommendation> parseGeminiBatchResponse(
+      String geminiResponse, List<ActivityObject> activities) {
+    List<Recommendation> recommendations;
     try {
-      JsonNode safety = analysisData.get("safety");
-      List<String> result = extractStringArray(safety);
-
-      if (result == null || result.isEmpty()) {
-        return List.of("Follow general safety guidelines for your activity type");
-      }
-
-      // Filter out empty strings
-      List<String> filtered =
-          result.stream().filter(s -> s != null && !s.trim().isEmpty()).toList();
-
-      return filtered.isEmpty()
-          ? List.of("Follow general safety guidelines for your activity type")
-          : filtered;
-
+      recommendations =
+          geminiResponseParser.parseBatch(
+              geminiResponseParser.extractText(geminiResponse), activities);
     } catch (Exception e) {
-      log.warn("Failed to extract safety guidelines: {}", e.getMessage());
-      return List.of("Follow general safety guidelines for your activity type");
-    }
-  }
-
-  private List<String> extractStringList(JsonNode arrayNode, String fieldName) {
-    List<String> result = new ArrayList<>();
-    if (arrayNode != null && arrayNode.isArray()) {
-      for (JsonNode item : arrayNode) {
-        if (item.has(fieldName)) {
-          String value = item.get(fieldName).asText();
-          if (value != null && !value.trim().isEmpty()) {
-            result.add(value);
-          }
-        }
-      }
+      log.warn("Failed to parse batched Gemini response: {}", e.getMessage());
+      return Collections.nCopies(activities.size(), null);
     }
-    return result;
-  }
-
-  private List<String> extractStringArray(JsonNode arrayNode) {
-    List<String> result = new ArrayList<>();
-    if (arrayNode != null && arrayNode.isArray()) {
-      for (JsonNode item : arrayNode) {
-        String value = item.asText();
-        if (value != null && !value.trim().isEmpty()) {
-          result.add(value);
-        }
+    for (int i = 0; i < activities.size(); i++) {
+      if (recommendations.get(i) == null) {
+        log.warn(
+            "Batched Gemini response has no analysis for activity={}", activities.get(i).getId());
       }
     }
-    return result;
+    return recommendations;
   }
 
   private String createPromptForActivity(ActivityObject activity) {
@@ -249,6 +259,7 @@ public class AICallerService {
         Duration: %d minutes
         Calories Burned: %d
         Additional Metrics: %s
+        Sensor Sample Summaries: %s
 
         Provide detailed analysis focusing on performance, improvements, next workout suggestions, and safety guidelines.
         Ensure the response follows the EXACT JSON format shown above.
@@ -256,6 +267,71 @@ public class AICallerService {
         activity.getType().name(),
         activity.getDuration(),
         activity.getCaloriesBurned(),
-        activity.getAdditionalMetrics());
+        activity.getAdditionalMetrics(),
+        activity.getSampleSummaries() != null ? activity.getSampleSummaries() : Map.of());
+  }
+
+  // The format instructions appear once for the whole batch; each analysis carries its activityId
+  // so that it can be matched back to its activity regardless of order
+  private String createPromptForActivities(List<ActivityObject> activities) {
+    StringBuilder activityDetails = new StringBuilder();
+    for (ActivityObject activity : activities) {
+      activityDetails.append(
+          String.format(
+              """
+              Activity ID: %s
+              Activity Type: %s
+              Duration: %d minutes
+              Calories Burned: %d
+              Additional Metrics: %s
+              Sensor Sample Summaries: %s
+
+              """,
+              activity.getId(),
+              activity.getType().name(),
+              activity.getDuration(),
+              activity.getCaloriesBurned(),
+              activity.getAdditionalMetrics(),
+              activity.getSampleSummaries() != null ? activity.getSampleSummaries() : Map.of()));
+    }
+
+    return String.format(
+        """
+        Analyze each of the following %d fitness activities and provide detailed recommendations for each one. Respond with a JSON array containing exactly one element per activity, in the following EXACT JSON format:
+        [
+          {
+            "activityId": "Activity ID exactly as given",
+            "analysis": {
+              "overall": "Overall analysis here",
+              "pace": "Pace analysis here",
+              "heartRate": "Heart rate analysis here",
+              "caloriesBurned": "Calories analysis here"
+            },
+            "improvements": [
+              {
+                "area": "Area name",
+                "recommendation": "Detailed recommendation"
+              }
+            ],
+            "suggestions": [
+              {
+                "workout": "Workout name",
+                "description": "Detailed workout description"
+              }
+            ],
+            "safety": [
+              "Safety point 1",
+              "Safety point 2"
+            ]
+          }
+        ]
+
+        Analyze these activities independently of each other:
+        %s\
+        Provide detailed analysis focusing on performance, improvements, next workout suggestions, and safety guidelines.
+        Ensure the response follows the EXACT JSON format shown above.
+        """,
+        activities.size(),
+        activityDetails);
   }
 }
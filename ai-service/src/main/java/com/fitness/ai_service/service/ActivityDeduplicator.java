@@ -0,0 +1,94 @@
+package com.fitness.ai_service.service;
+
+import com.fitness.ai_service.repository.RecommendationClaimRepository;
+import com.fitness.ai_service.repository.RecommendationRepository;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes sure an activity gets its recommendation generated once, however often its message is
+ * delivered. Before the Gemini call the listener claims the activity: ids of recently completed
+ * activities are answered from memory, then a claim in {@code recommendation_claims} keeps other
+ * consumers off the activity while the indexed existence check runs and while it is being
+ * generated. The methods block on MongoDB.
+ */
+@Component
+@Slf4j
+public class ActivityDeduplicator {
+
+  public enum Claim {
+    /** The caller owns the activity and must {@link #release} it when done. */
+    ACQUIRED,
+    /** The activity already has a recommendation. */
+    ALREADY_DONE,
+    /** Another consumer is generating it right now. */
+    IN_PROGRESS
+  }
+
+  // Identifies this instance's claims, so that it never releases a claim taken over by another
+  private final String owner = UUID.randomUUID().toString();
+  private final RecommendationRepository recommendationRepository;
+  private final RecommendationClaimRepository recommendationClaimRepository;
+  private final Duration claimLease;
+  private final Map<String, Boolean> recentlyDone;
+
+  public ActivityDeduplicator(
+      RecommendationRepository recommendationRepository,
+      RecommendationClaimRepository recommendationClaimRepository,
+      @Value("${ai.dedupe.claim-lease:10m}") Duration claimLease,
+      @Value("${ai.dedupe.recent-ids:100000}") int recentIds) {
+    this.recommendationRepository = recommendationRepository;
+    this.recommendationClaimRepository = recommendationClaimRepository;
+    this.claimLease = claimLease;
+    this.recentlyDone =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > recentIds;
+          }
+        };
+  }
+
+  public Claim claim(String activityId) {
+    if (isRecentlyDone(activityId)) {
+      return Claim.ALREADY_DONE;
+    }
+    if (!recommendationClaimRepository.tryClaim(activityId, owner, claimLease)) {
+      return Claim.IN_PROGRESS;
+    }
+    // Checked while holding the claim: a previous owner stores the recommendation before it
+    // releases, so it cannot be saved between this check and the Gemini call
+    if (recommendationRepository.existsByActivityId(activityId)) {
+      markDone(activityId);
+      release(activityId);
+      return Claim.ALREADY_DONE;
+    }
+    return Claim.ACQUIRED;
+  }
+
+  public void markDone(String activityId) {
+    synchronized (recentlyDone) {
+      recentlyDone.put(activityId, Boolean.TRUE);
+    }
+  }
+
+  // Failing to release only delays a retry of the activity until the lease runs out
+  public void release(String activityId) {
+    try {
+      recommendationClaimRepository.release(activityId, owner);
+    } catch (RuntimeException e) {
+      log.warn("Failed to release claim on activity={}: {}", activityId, e.getMessage());
+    }
+  }
+
+  private boolean isRecentlyDone(String activityId) {
+    synchronized (recentlyDone) {
+      return recentlyDone.containsKey(activityId);
+    }
+  }
+}
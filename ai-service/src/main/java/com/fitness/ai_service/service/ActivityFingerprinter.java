@@ -0,0 +1,110 @@
+package com.fitness.ai_service.service;
+
+import com.fitness.ai_service.dto.ActivityObject;
+import com.fitness.ai_service.dto.SampleSeriesSummary;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reduces an activity to the features that go into the Gemini prompt, bucketed so that nearly
+ * identical activities share a fingerprint: duration and calories are rounded down to configurable
+ * steps, and numeric metrics and sample summaries are rounded to a number of significant digits.
+ */
+@Component
+public class ActivityFingerprinter {
+  // Bump whenever the prompt changes, so that answers to the old prompt are no longer reused
+  private static final int FINGERPRINT_VERSION = 1;
+
+  private final int durationBucketMinutes;
+  private final int caloriesBucket;
+  private final MathContext metricPrecision;
+
+  public ActivityFingerprinter(
+      @Value("${ai.recommendation-cache.duration-bucket-minutes:5}") int durationBucketMinutes,
+      @Value("${ai.recommendation-cache.calories-bucket:25}") int caloriesBucket,
+      @Value("${ai.recommendation-cache.metric-significant-digits:2}")
+          int metricSignificantDigits) {
+    this.durationBucketMinutes = Math.max(durationBucketMinutes, 1);
+    this.caloriesBucket = Math.max(caloriesBucket, 1);
+    this.metricPrecision = new MathContext(Math.max(metricSignificantDigits, 1));
+  }
+
+  /** The normalized, human-readable feature string the fingerprint is computed from. */
+  public String features(ActivityObject activity) {
+    StringJoiner features = new StringJoiner("|");
+    features.add("v" + FINGERPRINT_VERSION);
+    features.add("type=" + activity.getType());
+    features.add("duration=" + bucket(activity.getDuration(), durationBucketMinutes));
+    features.add("calories=" + bucket(activity.getCaloriesBurned(), caloriesBucket));
+
+    StringJoiner metrics = new StringJoiner(",");
+    if (activity.getAdditionalMetrics() != null) {
+      new TreeMap<>(activity.getAdditionalMetrics())
+          .forEach((key, value) -> metrics.add(key + ":" + normalize(value)));
+    }
+    features.add("metrics=" + metrics);
+
+    StringJoiner samples = new StringJoiner(",");
+    if (activity.getSampleSummaries() != null) {
+      new TreeMap<>(activity.getSampleSummaries())
+          .forEach((metric, summary) -> samples.add(metric + ":" + normalize(summary)));
+    }
+    features.add("samples=" + samples);
+    return features.toString();
+  }
+
+  public String fingerprint(String features) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(features.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static String bucket(Integer value, int step) {
+    return value == null ? "-" : String.valueOf(Math.floorDiv(value, step) * step);
+  }
+
+  private String normalize(Object value) {
+    if (value == null) {
+      return "-";
+    }
+    if (value instanceof Number number) {
+      return round(number.doubleValue());
+    }
+    if (value instanceof Map<?, ?> map) {
+      StringJoiner nested = new StringJoiner(",", "{", "}");
+      new TreeMap<>(map)
+          .forEach((key, nestedValue) -> nested.add(key + ":" + normalize(nestedValue)));
+      return nested.toString();
+    }
+    return value.toString().trim().toLowerCase(Locale.ROOT);
+  }
+
+  // Count and time offsets vary with sampling rate and recording length, so only the value range
+  // and mean take part
+  private String normalize(SampleSeriesSummary summary) {
+    if (summary == null) {
+      return "-";
+    }
+    return round(summary.getMin()) + "/" + round(summary.getMean()) + "/" + round(summary.getMax());
+  }
+
+  private String round(double value) {
+    if (!Double.isFinite(value)) {
+      return String.valueOf(value);
+    }
+    return new BigDecimal(value).round(metricPrecision).stripTrailingZeros().toPlainString();
+  }
+}
@@ -1,14 +1,17 @@
 package com.fitness.ai_service.service;
 
+import com.fitness.ai_service.client.gemini.GeminiCircuitBreaker;
 import com.fitness.ai_service.dto.ActivityObject;
-import com.fitness.ai_service.exception.RecommendationGenerationException;
-import com.fitness.ai_service.model.Recommendation;
+import com.fitness.ai_service.exception.GeminiCapacityExceededException;
+import com.fitness.ai_service.exception.GeminiUnavailableException;
 import com.fitness.ai_service.repository.RecommendationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Service
 @Slf4j
@@ -17,30 +20,112 @@ public class ActivityMessageListener {
 
   private final AICallerService aiCallerService;
   private final RecommendationRepository recommendationRepository;
+  private final RecommendationStreamHub recommendationStreamHub;
+  private final ActivityRetryRouter activityRetryRouter;
+  private final RecommendationReadCache recommendationReadCache;
+  private final ActivityDeduplicator activityDeduplicator;
+  private final GeminiCircuitBreaker geminiCircuitBreaker;
+  private final ActivitySpool activitySpool;
+  private final RecommendationEventHub recommendationEventHub;
 
-  @RabbitListener(queues = "activity.queue")
-  public void processActivity(ActivityObject activity) {
-    try {
-      log.info("Received activity for processing={}", activity);
-      Recommendation recommendation = aiCallerService.generateRecommendation(activity);
-      log.info(
-          "Successfully processed activity={} with recommendation={}",
-          activity.getId(),
-          recommendation);
-
-      recommendationRepository.save(recommendation);
-      log.info("Saved recommendation for activity={} to database", activity.getId());
-    } catch (RecommendationGenerationException e) {
-      log.error(
-          "Failed to process activity={} after all retries={}", activity.getId(), e.getMessage());
-      // Prevents infinite loops
-      throw new AmqpRejectAndDontRequeueException(
-          "Failed to process activity after all retries", e);
-
-    } catch (Exception e) {
-      log.error("Unexpected error processing activity={}: {}", activity.getId(), e.getMessage());
-      // Stop requeue for unexpected errors either
-      throw new AmqpRejectAndDontRequeueException("Unexpected error processing activity", e);
+  // Returns as soon as the pipeline is assembled; the container acks the message when the Mono
+  // completes, so the consumer thread is free to take the next message in the meantime. A failed
+  // activity is handed to the retry queues or parked before the ack, so it is never dropped.
+  @RabbitListener(queues = "activity.queue", containerFactory = "activityListenerContainerFactory")
+  public Mono<Void> processActivity(ActivityObject activity, Message message) {
+    return process(activity, message, FairActivityScheduler.Lane.INTERACTIVE);
+  }
+
+  // Imports and backfills; these only get Gemini calls that interactive activities leave over
+  @RabbitListener(
+      queues = "${rabbitmq.bulk-queue.name:activity.bulk.queue}",
+      containerFactory = "bulkActivityListenerContainerFactory")
+  public Mono<Void> processBulkActivity(ActivityObject activity, Message message) {
+    return process(activity, message, FairActivityScheduler.Lane.BULK);
+  }
+
+  // The claim and the existence check block on MongoDB, so they run on the bounded elastic
+  // scheduler like the save. Duplicates of a stored activity are acked without a Gemini call.
+  private Mono<Void> process(
+      ActivityObject activity, Message message, FairActivityScheduler.Lane lane) {
+    log.info("Received {} activity for processing={}", lane, activity);
+    String activityId = activity.getId();
+    return Mono.fromCallable(() -> activityDeduplicator.claim(activityId))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(
+            claim ->
+                switch (claim) {
+                  case ALREADY_DONE -> {
+                    log.info("Activity={} already has a recommendation, skipping", activityId);
+                    yield Mono.<Void>empty();
+                  }
+                  case IN_PROGRESS -> activityRetryRouter.defer(activityId, message);
+                  case ACQUIRED ->
+                      generate(activity, lane)
+                          .doFinally(
+                              signal ->
+                                  Schedulers.boundedElastic()
+                                      .schedule(() -> activityDeduplicator.release(activityId)));
+                })
+        .onErrorResume(e -> handleFailure(activity, message, e));
+  }
+
+  private Mono<Void> generate(ActivityObject activity, FairActivityScheduler.Lane lane) {
+    return aiCallerService
+        .generateRecommendation(activity, lane)
+        .doOnNext(
+            recommendation ->
+                log.info(
+                    "Successfully processed activity={} with recommendation={}",
+                    activity.getId(),
+                    recommendation))
+        // The Mongo repository is blocking, so keep it off the Netty and timer threads
+        .publishOn(Schedulers.boundedElastic())
+        .map(recommendationRepository::upsertByActivityId)
+        .doOnNext(
+            saved -> {
+              log.info("Saved recommendation for activity={} to database", activity.getId());
+              activityDeduplicator.markDone(activity.getId());
+              recommendationReadCache.put(saved);
+              recommendationStreamHub.complete(activity.getId(), saved);
+              recommendationEventHub.publishReady(saved);
+            })
+        .then();
+  }
+
+  // If the retry or parking publish itself fails, the error nacks the delivery and the broker
+  // requeues it. Activities shed for lack of Gemini capacity come back without using an attempt,
+  // and while Gemini is down they are spooled rather than retried into the parking queue.
+  private Mono<Void> handleFailure(ActivityObject activity, Message message, Throwable e) {
+    if (e instanceof GeminiCapacityExceededException) {
+      return activityRetryRouter.defer(activity.getId(), message);
+    }
+    if (e instanceof GeminiUnavailableException
+        || (geminiCircuitBreaker.isOpen() && activityRetryRouter.shouldRetry(message, e))) {
+      return spool(activity, message);
     }
+    if (activityRetryRouter.shouldRetry(message, e)) {
+      recommendationStreamHub.publishRetry(activity.getId(), e.getMessage());
+      return activityRetryRouter.retry(activity.getId(), message, e);
+    }
+    recommendationStreamHub.fail(activity.getId(), e.getMessage());
+    return activityRetryRouter.park(activity.getId(), message, e);
+  }
+
+  // The message is acked once the activity is on disk; ActivitySpoolReplayer republishes it when
+  // Gemini is back. With the spool full or disabled, the broker holds the activity instead.
+  private Mono<Void> spool(ActivityObject activity, Message message) {
+    return Mono.fromCallable(() -> activitySpool.append(activity))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(
+            spooled -> {
+              if (!spooled) {
+                return activityRetryRouter.defer(activity.getId(), message);
+              }
+              recommendationStreamHub.publishRetry(
+                  activity.getId(),
+                  "Gemini is unavailable, the activity is queued until it is back");
+              return Mono.empty();
+            });
   }
 }
@@ -0,0 +1,150 @@
+package com.fitness.ai_service.service;
+
+import com.fitness.ai_service.config.RabbitMqConfig;
+import com.fitness.ai_service.exception.RecommendationGenerationException;
+import com.fitness.ai_service.exception.RecommendationParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Broker-side retry for activities whose recommendation could not be generated. A failed message is
+ * republished to the retry queue for its attempt, whose TTL delays it before it is dead-lettered
+ * back to the queue it was consumed from; each retry waits longer than the previous one. Once the
+ * delays are used up, or when the failure would repeat on every attempt, the message is parked
+ * instead, where it stays until it is replayed through {@link ParkedActivityService}.
+ */
+@Component
+@Slf4j
+public class ActivityRetryRouter {
+  public static final String RETRY_COUNT_HEADER = "x-retry-count";
+  public static final String LAST_ERROR_HEADER = "x-last-error";
+  public static final String PARKED_AT_HEADER = "x-parked-at";
+  // Added by the broker on every dead-lettering; it only grows and is not needed once republished
+  static final String DEATH_HEADER = "x-death";
+
+  private final RabbitTemplate rabbitTemplate;
+  private final String queue;
+  private final List<Duration> retryDelays;
+  private final Duration confirmTimeout;
+
+  public ActivityRetryRouter(
+      RabbitTemplate rabbitTemplate,
+      @Value("${rabbitmq.queue.name}") String queue,
+      @Value("${ai.retry.delays:10s,1m,5m}") List<Duration> retryDelays,
+      @Value("${ai.retry.confirm-timeout:5s}") Duration confirmTimeout) {
+    this.rabbitTemplate = rabbitTemplate;
+    this.queue = queue;
+    this.retryDelays = retryDelays;
+    this.confirmTimeout = confirmTimeout;
+  }
+
+  /** Whether the failed message gets another attempt, rather than being parked. */
+  public boolean shouldRetry(Message message, Throwable error) {
+    return retryCount(message) < retryDelays.size() && isRetryable(error);
+  }
+
+  /**
+   * Republishes the message to the retry queue for its next attempt. Completes once the broker has
+   * confirmed it, so the original delivery can be acked without any risk of losing the activity.
+   */
+  public Mono<Void> retry(String activityId, Message message, Throwable error) {
+    int retryCount = retryCount(message);
+    Duration delay = retryDelays.get(retryCount);
+    Message retried =
+        MessageBuilder.fromClonedMessage(message)
+            .setHeader(RETRY_COUNT_HEADER, retryCount + 1)
+            .setHeader(LAST_ERROR_HEADER, describe(error))
+            .removeHeader(DEATH_HEADER)
+            .build();
+    log.warn(
+        "Retrying activity={} attempt={} in {}: {}",
+        activityId,
+        retryCount + 2,
+        delay,
+        describe(error));
+    return publish(RabbitMqConfig.retryQueueName(sourceQueue(message), delay), retried);
+  }
+
+  /**
+   * Redelivers the message after the first retry delay without counting an attempt: for an activity
+   * that another consumer is generating right now, whose redelivery is normally dropped as a
+   * duplicate by then, or for one shed because Gemini had no capacity for it.
+   */
+  public Mono<Void> defer(String activityId, Message message) {
+    Duration delay = retryDelays.get(0);
+    Message deferred = MessageBuilder.fromClonedMessage(message).removeHeader(DEATH_HEADER).build();
+    log.info("Deferring activity={} for {}", activityId, delay);
+    return publish(RabbitMqConfig.retryQueueName(sourceQueue(message), delay), deferred);
+  }
+
+  /** Moves the message to the parking queue, confirmed like {@link #retry}. */
+  public Mono<Void> park(String activityId, Message message, Throwable error) {
+    Message parked =
+        MessageBuilder.fromClonedMessage(message)
+            .setHeader(LAST_ERROR_HEADER, describe(error))
+            .setHeader(PARKED_AT_HEADER, Instant.now().toString())
+            .removeHeader(DEATH_HEADER)
+            .build();
+    log.error(
+        "Parking activity={} after attempts={}: {}",
+        activityId,
+        retryCount(message) + 1,
+        describe(error));
+    return publish(RabbitMqConfig.parkingQueueName(queue), parked);
+  }
+
+  // Retries go back to the lane they came from, so a retried import stays in the bulk lane
+  private String sourceQueue(Message message) {
+    String consumerQueue = message.getMessageProperties().getConsumerQueue();
+    return consumerQueue != null ? consumerQueue : queue;
+  }
+
+  static int retryCount(Message message) {
+    Object count = message.getMessageProperties().getHeader(RETRY_COUNT_HEADER);
+    return count instanceof Number number ? number.intValue() : 0;
+  }
+
+  // The default exchange routes by queue name, so retries never reach other fitness.exchange
+  // bindings
+  private Mono<Void> publish(String targetQueue, Message message) {
+    return Mono.<Void>fromRunnable(
+            () ->
+                rabbitTemplate.invoke(
+                    operations -> {
+                      operations.send("", targetQueue, message);
+                      operations.waitForConfirmsOrDie(confirmTimeout.toMillis());
+                      return null;
+                    }))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  // Client errors other than 429 and unparseable answers will fail the same way on every attempt,
+  // so they only waste quota
+  private static boolean isRetryable(Throwable error) {
+    Throwable cause =
+        error instanceof RecommendationGenerationException && error.getCause() != null
+            ? error.getCause()
+            : error;
+    if (cause instanceof WebClientResponseException responseException) {
+      return responseException.getStatusCode().is5xxServerError()
+          || responseException.getStatusCode().value() == 429;
+    }
+    return !(cause instanceof IllegalArgumentException
+        || cause instanceof RecommendationParseException);
+  }
+
+  private static String describe(Throwable error) {
+    Throwable cause = error.getCause() != null ? error.getCause() : error;
+    return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+  }
+}
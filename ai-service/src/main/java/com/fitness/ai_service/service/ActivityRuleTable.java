@@ -0,0 +1,135 @@
+package com.fitness.ai_service.service;
+
+import com.fitness.ai_service.dto.ActivityObjectType;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ranges within which {@link RuleBasedRecommender} trusts itself for one activity type, and the
+ * speed bands it describes the effort with. Outside any range the activity goes to Gemini.
+ */
+record ActivityRuleTable(
+    String noun,
+    boolean describeAsPace,
+    Range durationMinutes,
+    Range caloriesPerMinute,
+    Range speedKmh,
+    int longSessionMinutes,
+    List<SpeedBand> speedBands) {
+
+  record Range(double min, double max) {
+    boolean contains(double value) {
+      return value >= min && value <= max;
+    }
+  }
+
+  /** An effort band from {@code minKmh} (inclusive) up to the next band's minimum. */
+  record SpeedBand(
+      String name, double minKmh, String improvement, String workout, String description) {}
+
+  static final Map<ActivityObjectType, ActivityRuleTable> TABLES =
+      Map.of(
+          ActivityObjectType.WALKING,
+          new ActivityRuleTable(
+              "walk",
+              true,
+              new Range(10, 180),
+              new Range(2, 8),
+              new Range(3, 8),
+              90,
+              List.of(
+                  new SpeedBand(
+                      "leisurely",
+                      3,
+                      "Pick up the pace for a few minutes at a time until breathing is noticeably"
+                          + " deeper.",
+                      "Brisk intervals",
+                      "Alternate 3 minutes brisk and 2 minutes easy walking for 30 minutes."),
+                  new SpeedBand(
+                      "brisk",
+                      5,
+                      "Keep the brisk pace and add a route with gentle hills.",
+                      "Hill walk",
+                      "40 minutes on a rolling route, pushing the pace on every climb."),
+                  new SpeedBand(
+                      "power-walking",
+                      6.5,
+                      "Focus on a quick arm swing and short steps to hold the pace comfortably.",
+                      "Easy jog intervals",
+                      "Alternate 1 minute of easy jogging with 4 minutes of walking, 5 times."))),
+          ActivityObjectType.RUNNING,
+          new ActivityRuleTable(
+              "run",
+              true,
+              new Range(10, 150),
+              new Range(6, 20),
+              new Range(6, 18),
+              75,
+              List.of(
+                  new SpeedBand(
+                      "easy",
+                      6,
+                      "Keep most runs at this conversational pace and add one faster session a"
+                          + " week.",
+                      "Strides",
+                      "After an easy run, 6 x 20 seconds of relaxed fast running with a full"
+                          + " walk back."),
+                  new SpeedBand(
+                      "steady",
+                      9.2,
+                      "Hold a relaxed upper body and aim for around 170 steps per minute.",
+                      "Tempo run",
+                      "10 minutes easy, 20 minutes comfortably hard, 10 minutes easy."),
+                  new SpeedBand(
+                      "tempo",
+                      10.9,
+                      "Balance this intensity with easy days so the legs recover between hard"
+                          + " sessions.",
+                      "Long easy run",
+                      "60 to 75 minutes at a conversational pace to build aerobic endurance."),
+                  new SpeedBand(
+                      "fast",
+                      12.6,
+                      "Warm up for at least 10 minutes before running at this pace.",
+                      "Recovery run",
+                      "30 minutes at a very easy pace the day after a fast session."))),
+          ActivityObjectType.CYCLING,
+          new ActivityRuleTable(
+              "ride",
+              false,
+              new Range(10, 300),
+              new Range(4, 16),
+              new Range(8, 45),
+              120,
+              List.of(
+                  new SpeedBand(
+                      "relaxed",
+                      8,
+                      "Shift to an easier gear and keep the cadence around 85 rpm to go faster"
+                          + " with the same effort.",
+                      "Cadence drills",
+                      "5 x 2 minutes at a high cadence in an easy gear, 2 minutes easy between."),
+                  new SpeedBand(
+                      "moderate",
+                      18,
+                      "Hold a steady effort on climbs instead of surging, and recover on the"
+                          + " descents.",
+                      "Sweet-spot intervals",
+                      "3 x 10 minutes at a strong but sustainable effort, 5 minutes easy between."),
+                  new SpeedBand(
+                      "fast",
+                      26,
+                      "Check the bike fit and tyre pressure; small gains matter at this speed.",
+                      "Endurance ride",
+                      "2 hours at a steady, conversational effort with regular fueling."))));
+
+  SpeedBand bandFor(double speedKmh) {
+    SpeedBand band = speedBands.get(0);
+    for (SpeedBand candidate : speedBands) {
+      if (speedKmh >= candidate.minKmh()) {
+        band = candidate;
+      }
+    }
+    return band;
+  }
+}
@@ -0,0 +1,236 @@
+package com.fitness.ai_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.ai_service.dto.ActivityObject;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Append-only, memory-mapped file that holds activities while Gemini is unavailable, so their
+ * messages can be acked instead of using up their retries. Each record is its length, a CRC32 and
+ * the activity as JSON; an append is forced to disk before it returns. The header holds the
+ * checkpoint, the offset of the first record not yet replayed, which {@link #commit} moves forward
+ * and forces as well. After a crash, records are read from the checkpoint up to the first one that
+ * is missing or torn. Once everything has been replayed the file is cleared and reused from the
+ * start. The methods block on disk I/O.
+ */
+@Component
+@Slf4j
+public class ActivitySpool {
+  private static final int MAGIC = 0x41435350;
+  private static final int CHECKPOINT_OFFSET = 8;
+  private static final int DATA_START = 64;
+  private static final int RECORD_HEADER = 8;
+
+  /** A spooled activity, and the checkpoint to commit once it has been handed on. */
+  public record Entry(ActivityObject activity, long nextOffset) {}
+
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final Path path;
+  private final int capacity;
+
+  private MappedByteBuffer buffer;
+  private int readOffset;
+  private int writeOffset;
+  private int pending;
+
+  public ActivitySpool(
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${ai.spool.enabled:true}") boolean enabled,
+      @Value("${ai.spool.path:data/activity-spool.dat}") Path path,
+      @Value("${ai.spool.capacity:256MB}") DataSize capacity) {
+    this.objectMapper = objectMapper;
+    this.enabled = enabled;
+    this.path = path;
+    // A single mapping is limited to 2 GB
+    this.capacity = (int) Math.min(capacity.toBytes(), Integer.MAX_VALUE);
+    Gauge.builder("ai.spool.pending", this, ActivitySpool::pending).register(meterRegistry);
+    Gauge.builder("ai.spool.used", this, ActivitySpool::usedBytes)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void open() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    try (FileChannel channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      // The mapping stays valid after the channel is closed
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+    long checkpoint = buffer.getLong(CHECKPOINT_OFFSET);
+    if (buffer.getInt(0) != MAGIC || checkpoint < DATA_START || checkpoint > capacity) {
+      buffer.putInt(0, MAGIC);
+      buffer.putLong(CHECKPOINT_OFFSET, DATA_START);
+      buffer.force();
+    }
+    readOffset = (int) buffer.getLong(CHECKPOINT_OFFSET);
+    writeOffset = readOffset;
+    int next;
+    while ((next = nextRecord(writeOffset)) > 0) {
+      writeOffset = next;
+      pending++;
+    }
+    if (pending > 0) {
+      log.info("Recovered {} spooled activities from {}", pending, path);
+    }
+  }
+
+  @PreDestroy
+  synchronized void close() {
+    if (buffer != null) {
+      buffer.force();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public synchronized int pending() {
+    return pending;
+  }
+
+  /**
+   * Appends the activity and forces it to disk. Returns false when the spool is disabled or full,
+   * in which case the caller has to keep the activity some other way.
+   */
+  public boolean append(ActivityObject activity) {
+    if (!enabled) {
+      return false;
+    }
+    byte[] payload;
+    try {
+      payload = objectMapper.writeValueAsBytes(activity);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    synchronized (this) {
+      if ((long) writeOffset + RECORD_HEADER + payload.length > capacity) {
+        log.warn("Activity spool {} is full, not spooling activity={}", path, activity.getId());
+        return false;
+      }
+      buffer.put(writeOffset + RECORD_HEADER, payload);
+      buffer.putInt(writeOffset + 4, checksum(payload));
+      buffer.putInt(writeOffset, payload.length);
+      buffer.force(writeOffset, RECORD_HEADER + payload.length);
+      writeOffset += RECORD_HEADER + payload.length;
+      pending++;
+    }
+    log.info("Spooled activity={} while Gemini is unavailable", activity.getId());
+    return true;
+  }
+
+  /** Reads up to {@code limit} activities from the checkpoint on, without committing them. */
+  public synchronized List<Entry> read(int limit) {
+    List<Entry> entries = new ArrayList<>();
+    int offset = readOffset;
+    while (entries.size() < limit && offset < writeOffset) {
+      int length = buffer.getInt(offset);
+      byte[] payload = new byte[length];
+      buffer.get(offset + RECORD_HEADER, payload);
+      try {
+        entries.add(
+            new Entry(
+                objectMapper.readValue(payload, ActivityObject.class),
+                offset + RECORD_HEADER + length));
+      } catch (IOException e) {
+        // Checksummed, so only a change to ActivityObject gets here; skip the record
+        log.error("Dropping unreadable spooled record at offset={}", offset, e);
+      }
+      offset += RECORD_HEADER + length;
+    }
+    // Nothing readable left; commit past the skipped records so they are not read again
+    if (entries.isEmpty() && offset > readOffset) {
+      commit(offset);
+    }
+    return entries;
+  }
+
+  /**
+   * Moves the checkpoint past the records before {@code nextOffset}. Commits must come in the order
+   * the entries were read. When nothing is left, the spool is cleared for reuse.
+   */
+  public synchronized void commit(long nextOffset) {
+    if (nextOffset <= readOffset || nextOffset > writeOffset) {
+      return;
+    }
+    int offset = readOffset;
+    while (offset < nextOffset) {
+      offset += RECORD_HEADER + buffer.getInt(offset);
+      pending--;
+    }
+    readOffset = offset;
+    if (readOffset == writeOffset) {
+      clear();
+    } else {
+      buffer.putLong(CHECKPOINT_OFFSET, readOffset);
+      buffer.force(CHECKPOINT_OFFSET, Long.BYTES);
+    }
+  }
+
+  private synchronized long usedBytes() {
+    return enabled ? writeOffset - readOffset : 0;
+  }
+
+  // Zeroes the records before moving the checkpoint back, so that a crash in between leaves an
+  // empty spool rather than old records behind a checkpoint that points at them
+  private void clear() {
+    int used = writeOffset - DATA_START;
+    if (used > 0) {
+      byte[] zeroes = new byte[Math.min(used, 1 << 20)];
+      for (int offset = DATA_START; offset < writeOffset; offset += zeroes.length) {
+        buffer.put(offset, zeroes, 0, Math.min(zeroes.length, writeOffset - offset));
+      }
+      buffer.force(DATA_START, used);
+    }
+    buffer.putLong(CHECKPOINT_OFFSET, DATA_START);
+    buffer.force(CHECKPOINT_OFFSET, Long.BYTES);
+    readOffset = DATA_START;
+    writeOffset = DATA_START;
+  }
+
+  // Returns the offset after the record at offset, or -1 if no complete record starts there
+  private int nextRecord(int offset) {
+    if ((long) offset + RECORD_HEADER > capacity) {
+      return -1;
+    }
+    int length = buffer.getInt(offset);
+    if (length <= 0 || (long) offset + RECORD_HEADER + length > capacity) {
+      return -1;
+    }
+    byte[] payload = new byte[length];
+    buffer.get(offset + RECORD_HEADER, payload);
+    return checksum(payload) == buffer.getInt(offset + 4) ? offset + RECORD_HEADER + length : -1;
+  }
+
+  private static int checksum(byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+}
@@ -0,0 +1,122 @@
+package com.fitness.ai_service.service;
+
+import com.fitness.ai_service.client.gemini.GeminiCircuitBreaker;
+import com.fitness.ai_service.dto.ActivityObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Drains {@link ActivitySpool} once Gemini is back, republishing at most {@code replay-rate}
+ * activities per second to the bulk queue, so they only use the quota interactive activities leave
+ * over. An activity is committed once the broker has confirmed it; after a crash in between it is
+ * published again and dropped as a duplicate by {@link ActivityDeduplicator}. While the circuit
+ * breaker is open, one activity is republished whenever a probe call is due, so the spool also
+ * drains when no new activities arrive to find out that Gemini has recovered.
+ */
+@Component
+@Slf4j
+public class ActivitySpoolReplayer {
+  private final ActivitySpool activitySpool;
+  private final GeminiCircuitBreaker geminiCircuitBreaker;
+  private final RabbitTemplate rabbitTemplate;
+  private final MessageConverter activityMessageConverter;
+  private final String bulkQueue;
+  private final int replayRate;
+  private final Duration confirmTimeout;
+  private final Counter replayed;
+
+  private Disposable replayer;
+
+  public ActivitySpoolReplayer(
+      ActivitySpool activitySpool,
+      GeminiCircuitBreaker geminiCircuitBreaker,
+      RabbitTemplate rabbitTemplate,
+      MessageConverter activityMessageConverter,
+      MeterRegistry meterRegistry,
+      @Value("${rabbitmq.bulk-queue.name:activity.bulk.queue}") String bulkQueue,
+      @Value("${ai.spool.replay-rate:20}") int replayRate,
+      @Value("${ai.retry.confirm-timeout:5s}") Duration confirmTimeout) {
+    this.activitySpool = activitySpool;
+    this.geminiCircuitBreaker = geminiCircuitBreaker;
+    this.rabbitTemplate = rabbitTemplate;
+    this.activityMessageConverter = activityMessageConverter;
+    this.bulkQueue = bulkQueue;
+    this.replayRate = Math.max(replayRate, 1);
+    this.confirmTimeout = confirmTimeout;
+    this.replayed = Counter.builder("ai.spool.replayed").register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    if (!activitySpool.isEnabled()) {
+      return;
+    }
+    // One activity per tick; ticks that arrive while a publish is still waiting are dropped
+    replayer =
+        Flux.interval(Duration.ofNanos(Duration.ofSeconds(1).toNanos() / replayRate))
+            .onBackpressureDrop()
+            .concatMap(
+                tick ->
+                    Mono.fromRunnable(this::replayNext)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(
+                            e -> {
+                              log.warn("Failed to replay a spooled activity: {}", e.toString());
+                              return Mono.empty();
+                            }),
+                1)
+            .subscribe();
+  }
+
+  @PreDestroy
+  void stop() {
+    if (replayer != null) {
+      replayer.dispose();
+    }
+  }
+
+  private void replayNext() {
+    if (activitySpool.pending() == 0
+        || (geminiCircuitBreaker.isOpen() && !geminiCircuitBreaker.isProbeDue())) {
+      return;
+    }
+    List<ActivitySpool.Entry> entries = activitySpool.read(1);
+    if (entries.isEmpty()) {
+      return;
+    }
+    ActivitySpool.Entry entry = entries.get(0);
+    publish(entry.activity());
+    activitySpool.commit(entry.nextOffset());
+    replayed.increment();
+    log.info(
+        "Replayed spooled activity={}, {} left in the spool",
+        entry.activity().getId(),
+        activitySpool.pending());
+  }
+
+  // The default exchange routes by queue name, like ActivityRetryRouter's republishes
+  private void publish(ActivityObject activity) {
+    Message message = activityMessageConverter.toMessage(activity, new MessageProperties());
+    rabbitTemplate.invoke(
+        operations -> {
+          operations.send("", bulkQueue, message);
+          operations.waitForConfirmsOrDie(confirmTimeout.toMillis());
+          return null;
+        });
+  }
+}
@@ -0,0 +1,243 @@
+package com.fitness.ai_service.service;
+
+import com.fitness.ai_service.client.gemini.GeminiConcurrencyLimit;
+import com.fitness.ai_service.exception.GeminiCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Decides which activity gets the next Gemini call. At most {@link GeminiConcurrencyLimit#limit()}
+ * calls run at once; the rest wait here, one queue per user, and are started round-robin across
+ * users, so a user with a thousand pending activities gets the same share as a user with one.
+ * Interactive activities always go before bulk ones, so imports and backfills only use the capacity
+ * interactive traffic leaves over. An activity that waits longer than its lane's maximum queue wait
+ * fails with {@link GeminiCapacityExceededException}, which hands it back to the broker.
+ */
+@Component
+@Slf4j
+public class FairActivityScheduler {
+
+  public enum Lane {
+    INTERACTIVE,
+    BULK
+  }
+
+  private final GeminiConcurrencyLimit concurrencyLimit;
+  private final Map<Lane, LaneQueue> lanes = new EnumMap<>(Lane.class);
+  private final Map<Lane, Duration> maxQueueWaits = new EnumMap<>(Lane.class);
+  private final Map<Lane, Timer> queueWaits = new EnumMap<>(Lane.class);
+  private final Map<Lane, Counter> shed = new EnumMap<>(Lane.class);
+  private int inFlight;
+  private boolean dispatching;
+
+  public FairActivityScheduler(
+      MeterRegistry meterRegistry,
+      GeminiConcurrencyLimit concurrencyLimit,
+      @Value("${ai.scheduling.max-queue-wait:2m}") Duration maxQueueWait,
+      @Value("${ai.scheduling.bulk-max-queue-wait:30m}") Duration bulkMaxQueueWait) {
+    this.concurrencyLimit = concurrencyLimit;
+    maxQueueWaits.put(Lane.INTERACTIVE, maxQueueWait);
+    maxQueueWaits.put(Lane.BULK, bulkMaxQueueWait);
+    for (Lane lane : Lane.values()) {
+      LaneQueue queue = new LaneQueue();
+      lanes.put(lane, queue);
+      String tag = lane.name().toLowerCase(Locale.ROOT);
+      Gauge.builder("ai.scheduling.queued", this, scheduler -> scheduler.queued(lane))
+          .tags("lane", tag)
+          .register(meterRegistry);
+      Gauge.builder("ai.scheduling.users", this, scheduler -> scheduler.waitingUsers(lane))
+          .tags("lane", tag)
+          .register(meterRegistry);
+      queueWaits.put(
+          lane,
+          Timer.builder("ai.scheduling.queue.wait")
+              .tags("lane", tag)
+              .publishPercentiles(0.5, 0.99)
+              .register(meterRegistry));
+      shed.put(
+          lane, Counter.builder("ai.scheduling.shed").tags("lane", tag).register(meterRegistry));
+    }
+  }
+
+  /**
+   * Runs {@code work} once it is this user's turn. The slot is held until the returned Mono
+   * terminates or is cancelled; cancelling while still queued just drops the entry.
+   */
+  public <T> Mono<T> schedule(Lane lane, String keycloakId, Supplier<Mono<T>> work) {
+    return Mono.defer(
+        () -> {
+          Task task = new Task(lane, keycloakId != null ? keycloakId : "", System.nanoTime());
+          enqueue(task);
+          Duration maxQueueWait = maxQueueWaits.get(lane);
+          return task.turn
+              .asMono()
+              .timeout(
+                  maxQueueWait,
+                  Mono.error(
+                      () -> {
+                        shed.get(lane).increment();
+                        return new GeminiCapacityExceededException(
+                            "No Gemini capacity for " + lane + " activity within " + maxQueueWait);
+                      }))
+              .then(Mono.defer(work))
+              .doFinally(signal -> release(task));
+        });
+  }
+
+  synchronized int queued(Lane lane) {
+    return lanes.get(lane).size;
+  }
+
+  synchronized int waitingUsers(Lane lane) {
+    return lanes.get(lane).ring.size();
+  }
+
+  private void enqueue(Task task) {
+    synchronized (this) {
+      lanes.get(task.lane).add(task);
+    }
+    dispatch();
+  }
+
+  private void release(Task task) {
+    synchronized (this) {
+      if (task.started) {
+        inFlight--;
+        concurrencyLimit.slotReleased();
+      } else {
+        lanes.get(task.lane).remove(task);
+        return;
+      }
+    }
+    dispatch();
+  }
+
+  // Turns are signalled outside the lock, because the work starts on the signalling thread. Work
+  // that ends at once releases its slot from inside that signal; such nested calls return straight
+  // away and the running loop starts the next turns, so the stack does not grow with the queue.
+  private void dispatch() {
+    synchronized (this) {
+      if (dispatching) {
+        return;
+      }
+      dispatching = true;
+    }
+    boolean drained = false;
+    try {
+      while (!drained) {
+        List<Task> next = new ArrayList<>();
+        synchronized (this) {
+          int limit = concurrencyLimit.limit();
+          while (inFlight < limit) {
+            Task task = lanes.get(Lane.INTERACTIVE).poll();
+            if (task == null) {
+              task = lanes.get(Lane.BULK).poll();
+            }
+            if (task == null) {
+              break;
+            }
+            task.started = true;
+            inFlight++;
+            concurrencyLimit.slotAcquired();
+            next.add(task);
+          }
+          // Decided under the lock, so a release after this point finds dispatching false
+          if (next.isEmpty()) {
+            dispatching = false;
+            drained = true;
+          }
+        }
+        long now = System.nanoTime();
+        for (Task task : next) {
+          log.debug("Starting {} activity for keycloakId={}", task.lane, task.keycloakId);
+          queueWaits.get(task.lane).record(now - task.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+          task.turn.tryEmitEmpty();
+        }
+      }
+    } finally {
+      if (!drained) {
+        synchronized (this) {
+          dispatching = false;
+        }
+      }
+    }
+  }
+
+  private static final class Task {
+    private final Lane lane;
+    private final String keycloakId;
+    private final long enqueuedAtNanos;
+    private final Sinks.Empty<Void> turn = Sinks.empty();
+    private boolean started;
+
+    private Task(Lane lane, String keycloakId, long enqueuedAtNanos) {
+      this.lane = lane;
+      this.keycloakId = keycloakId;
+      this.enqueuedAtNanos = enqueuedAtNanos;
+    }
+  }
+
+  // Round robin over the users with pending tasks: the user at the head of the ring gets one task
+  // started and moves to the back, and leaves the ring once their queue is empty
+  private static final class LaneQueue {
+    private final Map<String, ArrayDeque<Task>> byUser = new HashMap<>();
+    private final ArrayDeque<String> ring = new ArrayDeque<>();
+    private int size;
+
+    private void add(Task task) {
+      byUser
+          .computeIfAbsent(
+              task.keycloakId,
+              user -> {
+                ring.addLast(user);
+                return new ArrayDeque<>();
+              })
+          .addLast(task);
+      size++;
+    }
+
+    private Task poll() {
+      String user = ring.pollFirst();
+      if (user == null) {
+        return null;
+      }
+      ArrayDeque<Task> tasks = byUser.get(user);
+      Task task = tasks.pollFirst();
+      size--;
+      if (tasks.isEmpty()) {
+        byUser.remove(user);
+      } else {
+        ring.addLast(user);
+      }
+      return task;
+    }
+
+    private void remove(Task task) {
+      ArrayDeque<Task> tasks = byUser.get(task.keycloakId);
+      if (tasks != null && tasks.remove(task)) {
+        size--;
+        if (tasks.isEmpty()) {
+          byUser.remove(task.keycloakId);
+          ring.remove(task.keycloakId);
+        }
+      }
+    }
+  }
+}
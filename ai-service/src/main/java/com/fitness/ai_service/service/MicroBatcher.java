@@ -0,0 +1,112 @@
+package com.fitness.ai_service.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Groups concurrently submitted items into batches of up to {@code maxSize} items, or whatever
+ * arrived within {@code maxWait} of the first one, and hands each batch to {@code batchHandler}.
+ * The handler returns one result per item, in order; items it returns null for, because their part
+ * of the answer was missing or malformed, are resolved one by one with {@code fallback}. If the
+ * batch fails as a whole, every item fails with its error, so that a throttled or failed call is
+ * not followed by one call per item. A batch of a single item goes straight to {@code
+ * singleHandler}.
+ */
+@Slf4j
+final class MicroBatcher<T, R> implements Disposable {
+  private static final Duration EMIT_TIMEOUT = Duration.ofSeconds(1);
+
+  private final Sinks.Many<Pending<T, R>> sink = Sinks.many().unicast().onBackpressureBuffer();
+  private final Function<List<T>, Mono<List<R>>> batchHandler;
+  private final Function<T, Mono<R>> singleHandler;
+  private final Function<T, Mono<R>> fallback;
+  private final Disposable subscription;
+
+  MicroBatcher(
+      int maxSize,
+      Duration maxWait,
+      int maxConcurrentBatches,
+      Function<List<T>, Mono<List<R>>> batchHandler,
+      Function<T, Mono<R>> singleHandler,
+      Function<T, Mono<R>> fallback) {
+    this.batchHandler = batchHandler;
+    this.singleHandler = singleHandler;
+    this.fallback = fallback;
+    this.subscription =
+        sink.asFlux()
+            .bufferTimeout(maxSize, maxWait, true)
+            .flatMap(this::dispatch, maxConcurrentBatches)
+            .subscribe();
+  }
+
+  Mono<R> submit(T item) {
+    return Mono.defer(
+        () -> {
+          Sinks.One<R> result = Sinks.one();
+          // Submissions come from many threads; busy-looping serializes the rare concurrent emit
+          sink.emitNext(
+              new Pending<>(item, result), Sinks.EmitFailureHandler.busyLooping(EMIT_TIMEOUT));
+          return result.asMono();
+        });
+  }
+
+  @Override
+  public void dispose() {
+    sink.tryEmitComplete();
+    subscription.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return subscription.isDisposed();
+  }
+
+  private Mono<Void> dispatch(List<Pending<T, R>> batch) {
+    if (batch.size() == 1) {
+      return complete(batch.get(0), singleHandler.apply(batch.get(0).item()));
+    }
+    List<T> items = batch.stream().map(Pending::item).toList();
+    return batchHandler
+        .apply(items)
+        .doOnError(
+            e -> {
+              log.warn("Batch of {} failed: {}", batch.size(), e.getMessage());
+              batch.forEach(pending -> pending.result().tryEmitError(e));
+            })
+        .onErrorResume(e -> Mono.empty())
+        .flatMap(
+            results ->
+                Flux.range(0, batch.size())
+                    .flatMap(
+                        i -> {
+                          Pending<T, R> pending = batch.get(i);
+                          R result = i < results.size() ? results.get(i) : null;
+                          return complete(
+                              pending,
+                              result != null ? Mono.just(result) : fallback.apply(pending.item()));
+                        })
+                    .then());
+  }
+
+  private Mono<Void> complete(Pending<T, R> pending, Mono<R> result) {
+    return result
+        .doOnNext(pending.result()::tryEmitValue)
+        .doOnError(pending.result()::tryEmitError)
+        .doOnSuccess(
+            value -> {
+              if (value == null) {
+                pending.result().tryEmitEmpty();
+              }
+            })
+        .onErrorResume(e -> Mono.empty())
+        .then();
+  }
+
+  private record Pending<T, R>(T item, Sinks.One<R> result) {}
+}
@@ -0,0 +1,148 @@
+package com.fitness.ai_service.service;
+
+import com.fitness.ai_service.config.RabbitMqConfig;
+import com.fitness.ai_service.dto.ActivityObject;
+import com.fitness.ai_service.dto.ParkedActivity;
+import com.fitness.ai_service.dto.ParkedActivityReplay;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Inspects and replays activities parked by {@link ActivityRetryRouter}. Inspection reads messages
+ * without acknowledging them and then returns them all to the queue, so it does not change the
+ * parking queue. A replay moves messages back to the activity queue with a fresh retry budget.
+ */
+@Service
+@Slf4j
+public class ParkedActivityService {
+  private final RabbitTemplate rabbitTemplate;
+  private final MessageConverter activityMessageConverter;
+  private final MessagePropertiesConverter propertiesConverter =
+      new DefaultMessagePropertiesConverter();
+  private final String queue;
+  private final String parkingQueue;
+  private final Duration confirmTimeout;
+
+  public ParkedActivityService(
+      RabbitTemplate rabbitTemplate,
+      MessageConverter activityMessageConverter,
+      @Value("${rabbitmq.queue.name}") String queue,
+      @Value("${ai.retry.confirm-timeout:5s}") Duration confirmTimeout) {
+    this.rabbitTemplate = rabbitTemplate;
+    this.activityMessageConverter = activityMessageConverter;
+    this.queue = queue;
+    this.parkingQueue = RabbitMqConfig.parkingQueueName(queue);
+    this.confirmTimeout = confirmTimeout;
+  }
+
+  public long countParked() {
+    return rabbitTemplate.execute(channel -> channel.messageCount(parkingQueue));
+  }
+
+  public List<ParkedActivity> listParked(int limit) {
+    return rabbitTemplate.execute(
+        channel -> {
+          List<ParkedActivity> parked = new ArrayList<>();
+          long lastDeliveryTag = -1;
+          try {
+            GetResponse response;
+            while (parked.size() < limit
+                && (response = channel.basicGet(parkingQueue, false)) != null) {
+              lastDeliveryTag = response.getEnvelope().getDeliveryTag();
+              parked.add(toParkedActivity(toMessage(response)));
+            }
+          } finally {
+            if (lastDeliveryTag >= 0) {
+              channel.basicNack(lastDeliveryTag, true, true);
+            }
+          }
+          return parked;
+        });
+  }
+
+  /** Moves up to {@code limit} parked activities, oldest first, back to the activity queue. */
+  public ParkedActivityReplay replay(int limit) {
+    return rabbitTemplate.execute(
+        channel -> {
+          int replayed = 0;
+          GetResponse response;
+          while (replayed < limit && (response = channel.basicGet(parkingQueue, false)) != null) {
+            republish(channel, response);
+            replayed++;
+          }
+          log.info("Replayed {} parked activities", replayed);
+          return ParkedActivityReplay.builder()
+              .replayed(replayed)
+              .remaining(channel.messageCount(parkingQueue))
+              .build();
+        });
+  }
+
+  // The parked copy is only acked once the broker has confirmed the replayed one
+  private void republish(Channel channel, GetResponse response) throws IOException {
+    long deliveryTag = response.getEnvelope().getDeliveryTag();
+    try {
+      Message replayed =
+          MessageBuilder.fromMessage(toMessage(response))
+              .removeHeader(ActivityRetryRouter.RETRY_COUNT_HEADER)
+              .removeHeader(ActivityRetryRouter.LAST_ERROR_HEADER)
+              .removeHeader(ActivityRetryRouter.PARKED_AT_HEADER)
+              .removeHeader(ActivityRetryRouter.DEATH_HEADER)
+              .build();
+      AMQP.BasicProperties properties =
+          propertiesConverter.fromMessageProperties(
+              replayed.getMessageProperties(), StandardCharsets.UTF_8.name());
+      channel.basicPublish("", queue, properties, replayed.getBody());
+      channel.waitForConfirmsOrDie(confirmTimeout.toMillis());
+      channel.basicAck(deliveryTag, false);
+    } catch (IOException | InterruptedException | TimeoutException | RuntimeException e) {
+      channel.basicNack(deliveryTag, false, true);
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      throw new IllegalStateException("Failed to replay parked activity", e);
+    }
+  }
+
+  private Message toMessage(GetResponse response) {
+    return new Message(
+        response.getBody(),
+        propertiesConverter.toMessageProperties(
+            response.getProps(), response.getEnvelope(), StandardCharsets.UTF_8.name()));
+  }
+
+  private ParkedActivity toParkedActivity(Message message) {
+    return ParkedActivity.builder()
+        .activity(decode(message))
+        .attempts(ActivityRetryRouter.retryCount(message) + 1)
+        .lastError(message.getMessageProperties().getHeader(ActivityRetryRouter.LAST_ERROR_HEADER))
+        .parkedAt(message.getMessageProperties().getHeader(ActivityRetryRouter.PARKED_AT_HEADER))
+        .build();
+  }
+
+  private ActivityObject decode(Message message) {
+    try {
+      message.getMessageProperties().setInferredArgumentType(ActivityObject.class);
+      return (ActivityObject) activityMessageConverter.fromMessage(message);
+    } catch (RuntimeException e) {
+      log.warn("Could not decode parked activity message: {}", e.getMessage());
+      return null;
+    }
+  }
+}
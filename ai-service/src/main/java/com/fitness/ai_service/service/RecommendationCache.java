@@ -0,0 +1,264 @@
+package com.fitness.ai_service.service;
+
+import com.fitness.ai_service.dto.ActivityObject;
+import com.fitness.ai_service.dto.ActivityObjectType;
+import com.fitness.ai_service.dto.CacheHitStats;
+import com.fitness.ai_service.model.CachedRecommendation;
+import com.fitness.ai_service.model.Recommendation;
+import com.fitness.ai_service.repository.CachedRecommendationRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Two-tier cache of Gemini answers keyed by {@link ActivityFingerprinter} fingerprints: a bounded
+ * in-memory LRU in front of the {@code recommendation_cache} collection, which survives restarts
+ * and is shared between instances. Concurrent misses for the same fingerprint share one Gemini
+ * call. Hits, misses and hit ratios are tracked per activity type.
+ */
+@Component
+@Slf4j
+public class RecommendationCache {
+  private final CachedRecommendationRepository cachedRecommendationRepository;
+  private final ActivityFingerprinter activityFingerprinter;
+  private final boolean enabled;
+  private final Duration ttl;
+  private final Map<String, CachedRecommendation> memory;
+  private final Map<String, Mono<CachedRecommendation>> inFlight = new ConcurrentHashMap<>();
+  private final Map<ActivityObjectType, TypeStats> stats = new ConcurrentHashMap<>();
+
+  public RecommendationCache(
+      CachedRecommendationRepository cachedRecommendationRepository,
+      ActivityFingerprinter activityFingerprinter,
+      MeterRegistry meterRegistry,
+      @Value("${ai.recommendation-cache.enabled:true}") boolean enabled,
+      @Value("${ai.recommendation-cache.memory-max-size:10000}") int memoryMaxSize,
+      @Value("${ai.recommendation-cache.ttl:7d}") Duration ttl) {
+    this.cachedRecommendationRepository = cachedRecommendationRepository;
+    this.activityFingerprinter = activityFingerprinter;
+    this.enabled = enabled;
+    this.ttl = ttl;
+    // Access-ordered LinkedHashMap gives us LRU eviction once memoryMaxSize is reached
+    this.memory =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, CachedRecommendation> eldest) {
+            return size() > memoryMaxSize;
+          }
+        };
+
+    for (ActivityObjectType type : ActivityObjectType.values()) {
+      TypeStats typeStats = new TypeStats();
+      stats.put(type, typeStats);
+      String tag = type.name();
+      FunctionCounter.builder("recommendation.cache.hits", typeStats.memoryHits, LongAdder::sum)
+          .tags("type", tag, "tier", "memory")
+          .register(meterRegistry);
+      FunctionCounter.builder("recommendation.cache.hits", typeStats.persistentHits, LongAdder::sum)
+          .tags("type", tag, "tier", "mongo")
+          .register(meterRegistry);
+      FunctionCounter.builder("recommendation.cache.coalesced", typeStats.coalesced, LongAdder::sum)
+          .tags("type", tag)
+          .register(meterRegistry);
+      FunctionCounter.builder("recommendation.cache.misses", typeStats.misses, LongAdder::sum)
+          .tags("type", tag)
+          .register(meterRegistry);
+      Gauge.builder("recommendation.cache.hit.ratio", typeStats, TypeStats::hitRatio)
+          .tags("type", tag)
+          .register(meterRegistry);
+    }
+  }
+
+  /**
+   * Returns a recommendation for the activity from the cache, or from {@code generator} on a miss,
+   * in which case the answer is cached for later activities with the same fingerprint.
+   */
+  public Mono<Recommendation> getOrGenerate(
+      ActivityObject activity, Supplier<Mono<Recommendation>> generator) {
+    if (!enabled) {
+      return generator.get();
+    }
+    String features = activityFingerprinter.features(activity);
+    String fingerprint = activityFingerprinter.fingerprint(features);
+    TypeStats typeStats = statsFor(activity.getType());
+
+    CachedRecommendation cached = lookupMemory(fingerprint);
+    if (cached != null) {
+      typeStats.memoryHits.increment();
+      log.debug("Recommendation cache memory hit for activity={}", activity.getId());
+      return Mono.just(toRecommendation(cached, activity));
+    }
+
+    AtomicBoolean created = new AtomicBoolean(false);
+    Mono<CachedRecommendation> shared =
+        inFlight.computeIfAbsent(
+            fingerprint,
+            key -> {
+              created.set(true);
+              return load(key, features, activity, typeStats, generator);
+            });
+    if (!created.get()) {
+      typeStats.coalesced.increment();
+      log.debug("Coalesced recommendation lookup for activity={}", activity.getId());
+    }
+    return shared.map(result -> toRecommendation(result, activity));
+  }
+
+  public List<CacheHitStats> getStats() {
+    return Arrays.stream(ActivityObjectType.values())
+        .map(
+            type -> {
+              TypeStats typeStats = statsFor(type);
+              return CacheHitStats.builder()
+                  .type(type)
+                  .memoryHits(typeStats.memoryHits.sum())
+                  .persistentHits(typeStats.persistentHits.sum())
+                  .coalesced(typeStats.coalesced.sum())
+                  .misses(typeStats.misses.sum())
+                  .hitRatio(typeStats.hitRatio())
+                  .build();
+            })
+        .toList();
+  }
+
+  private Mono<CachedRecommendation> load(
+      String fingerprint,
+      String features,
+      ActivityObject activity,
+      TypeStats typeStats,
+      Supplier<Mono<Recommendation>> generator) {
+    return lookupPersistent(fingerprint)
+        .doOnNext(
+            found -> {
+              typeStats.persistentHits.increment();
+              storeMemory(found);
+              log.debug("Recommendation cache mongo hit for activity={}", activity.getId());
+            })
+        .switchIfEmpty(
+            Mono.defer(
+                () -> {
+                  typeStats.misses.increment();
+                  return generator
+                      .get()
+                      .map(generated -> toCached(fingerprint, features, generated))
+                      .flatMap(generated -> store(generated).thenReturn(generated));
+                }))
+        .doFinally(signal -> inFlight.remove(fingerprint))
+        .cache();
+  }
+
+  private CachedRecommendation lookupMemory(String fingerprint) {
+    synchronized (memory) {
+      CachedRecommendation cached = memory.get(fingerprint);
+      if (cached == null) {
+        return null;
+      }
+      if (isExpired(cached)) {
+        memory.remove(fingerprint);
+        return null;
+      }
+      return cached;
+    }
+  }
+
+  private void storeMemory(CachedRecommendation cached) {
+    synchronized (memory) {
+      memory.put(cached.getFingerprint(), cached);
+    }
+  }
+
+  // The TTL monitor only runs once a minute, so expired documents are filtered here as well. A
+  // failing Mongo tier degrades to a miss rather than failing the activity.
+  private Mono<CachedRecommendation> lookupPersistent(String fingerprint) {
+    return Mono.fromCallable(
+            () ->
+                cachedRecommendationRepository
+                    .findById(fingerprint)
+                    .filter(found -> !isExpired(found)))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(Mono::justOrEmpty)
+        .onErrorResume(
+            e -> {
+              log.warn("Recommendation cache lookup failed: {}", e.getMessage());
+              return Mono.empty();
+            });
+  }
+
+  private Mono<Void> store(CachedRecommendation cached) {
+    storeMemory(cached);
+    return Mono.fromRunnable(() -> cachedRecommendationRepository.save(cached))
+        .subscribeOn(Schedulers.boundedElastic())
+        .onErrorResume(
+            e -> {
+              log.warn("Recommendation cache write failed: {}", e.getMessage());
+              return Mono.empty();
+            })
+        .then();
+  }
+
+  private static boolean isExpired(CachedRecommendation cached) {
+    return cached.getExpiresAt() != null && cached.getExpiresAt().isBefore(Instant.now());
+  }
+
+  private CachedRecommendation toCached(
+      String fingerprint, String features, Recommendation recommendation) {
+    Instant now = Instant.now();
+    return CachedRecommendation.builder()
+        .fingerprint(fingerprint)
+        .features(features)
+        .type(recommendation.getType())
+        .recommendation(recommendation.getRecommendation())
+        .improvements(recommendation.getImprovements())
+        .suggestions(recommendation.getSuggestions())
+        .safety(recommendation.getSafety())
+        .createdAt(now)
+        .expiresAt(now.plus(ttl))
+        .build();
+  }
+
+  private static Recommendation toRecommendation(
+      CachedRecommendation cached, ActivityObject activity) {
+    return Recommendation.builder()
+        .activityId(activity.getId())
+        .keycloakId(activity.getKeycloakId())
+        .type(activity.getType())
+        .recommendation(cached.getRecommendation())
+        .improvements(cached.getImprovements())
+        .suggestions(cached.getSuggestions())
+        .safety(cached.getSafety())
+        .build();
+  }
+
+  private TypeStats statsFor(ActivityObjectType type) {
+    return Optional.ofNullable(type).map(stats::get).orElseGet(TypeStats::new);
+  }
+
+  private static final class TypeStats {
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder persistentHits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private double hitRatio() {
+      long hits = memoryHits.sum() + persistentHits.sum() + coalesced.sum();
+      long total = hits + misses.sum();
+      return total == 0 ? 0.0 : (double) hits / total;
+    }
+  }
+}
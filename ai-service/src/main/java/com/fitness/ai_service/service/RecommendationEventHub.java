@@ -0,0 +1,125 @@
+package com.fitness.ai_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.ai_service.model.Recommendation;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Pushes every saved recommendation to its user's open SSE connections, so clients do not have to
+ * poll for it. The instance that saves a recommendation publishes a {@code ready} event to the
+ * recommendation-events fanout exchange; every instance receives it and hands it to the subscribers
+ * of that user it holds, if any. Events are not kept: a client that was not connected reloads the
+ * recommendations once it is.
+ */
+@Component
+@Slf4j
+public class RecommendationEventHub {
+  private static final Duration EMIT_TIMEOUT = Duration.ofSeconds(1);
+
+  private final RabbitTemplate rabbitTemplate;
+  private final ObjectMapper objectMapper;
+  private final String exchange;
+  private final Duration heartbeat;
+  private final Map<String, UserChannel> channels = new ConcurrentHashMap<>();
+
+  public RecommendationEventHub(
+      RabbitTemplate rabbitTemplate,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${rabbitmq.recommendation-events.exchange:recommendation.ready}") String exchange,
+      @Value("${ai.recommendation-events.heartbeat:30s}") Duration heartbeat) {
+    this.rabbitTemplate = rabbitTemplate;
+    this.objectMapper = objectMapper;
+    this.exchange = exchange;
+    this.heartbeat = heartbeat;
+    Gauge.builder("ai.recommendation-events.users", channels, Map::size).register(meterRegistry);
+  }
+
+  /**
+   * Announces a saved recommendation to all instances. Blocks on the broker; a failure is only
+   * logged, since the recommendation is stored and clients find it when they reload.
+   */
+  public void publishReady(Recommendation recommendation) {
+    try {
+      Message message =
+          MessageBuilder.withBody(objectMapper.writeValueAsBytes(recommendation))
+              .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+              .build();
+      rabbitTemplate.send(exchange, "", message);
+    } catch (IOException | AmqpException e) {
+      log.warn(
+          "Failed to publish recommendation-ready event for activity={}: {}",
+          recommendation.getActivityId(),
+          e.toString());
+    }
+  }
+
+  // Auto-acked: an event lost here only means a client reloads instead of being pushed to
+  @RabbitListener(queues = "#{recommendationEventsQueue.name}")
+  public void onReady(Message message) throws IOException {
+    Recommendation recommendation = objectMapper.readValue(message.getBody(), Recommendation.class);
+    UserChannel channel = channels.get(recommendation.getKeycloakId());
+    if (channel != null) {
+      channel.sink.emitNext(
+          ServerSentEvent.<Object>builder(recommendation)
+              .id(recommendation.getActivityId())
+              .event("ready")
+              .build(),
+          Sinks.EmitFailureHandler.busyLooping(EMIT_TIMEOUT));
+    }
+  }
+
+  /**
+   * Streams a {@code ready} event for each of the user's recommendations saved from now on, with a
+   * comment every {@code heartbeat} so that idle connections are not closed by proxies.
+   */
+  public Flux<ServerSentEvent<Object>> subscribe(String keycloakId) {
+    return Flux.defer(
+        () -> {
+          UserChannel channel =
+              channels.compute(
+                  keycloakId,
+                  (id, existing) -> {
+                    UserChannel current = existing != null ? existing : new UserChannel();
+                    current.subscribers++;
+                    return current;
+                  });
+          return Flux.merge(
+                  channel.sink.asFlux(),
+                  Flux.interval(heartbeat)
+                      .map(tick -> ServerSentEvent.<Object>builder().comment("heartbeat").build()))
+              .doFinally(signal -> unsubscribe(keycloakId, channel));
+        });
+  }
+
+  private void unsubscribe(String keycloakId, UserChannel channel) {
+    channels.computeIfPresent(
+        keycloakId,
+        (id, existing) -> existing == channel && --existing.subscribers == 0 ? null : existing);
+  }
+
+  // All of one user's connections to this instance share a sink; subscribers is only changed
+  // inside the map's compute methods, which lock the user's entry
+  private static final class UserChannel {
+    private final Sinks.Many<ServerSentEvent<Object>> sink =
+        Sinks.many().multicast().directBestEffort();
+    private int subscribers;
+  }
+}
@@ -0,0 +1,80 @@
+package com.fitness.ai_service.service;
+
+import com.fitness.ai_service.model.Recommendation;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of stored recommendations by activity id, so that the UI polling an activity
+ * does not query MongoDB on every request. {@link ActivityMessageListener} refreshes the entry when
+ * it saves a recommendation. Activities without a recommendation yet are cached for the much
+ * shorter {@code negative-ttl}, which bounds how stale a poll can be when another instance did the
+ * save.
+ */
+@Component
+public class RecommendationReadCache {
+  private final boolean enabled;
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final Map<String, Entry> entries;
+
+  public RecommendationReadCache(
+      @Value("${ai.recommendation-read-cache.enabled:true}") boolean enabled,
+      @Value("${ai.recommendation-read-cache.max-size:10000}") int maxSize,
+      @Value("${ai.recommendation-read-cache.ttl:10m}") Duration ttl,
+      @Value("${ai.recommendation-read-cache.negative-ttl:2s}") Duration negativeTtl) {
+    this.enabled = enabled;
+    this.ttlNanos = ttl.toNanos();
+    this.negativeTtlNanos = negativeTtl.toNanos();
+    // Access-ordered LinkedHashMap gives us LRU eviction once maxSize is reached
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+          }
+        };
+  }
+
+  /** Returns the cached recommendation for the activity, or loads and caches it on a miss. */
+  public Recommendation get(String activityId, Supplier<Optional<Recommendation>> loader) {
+    if (!enabled) {
+      return loader.get().orElse(null);
+    }
+    long now = System.nanoTime();
+    synchronized (entries) {
+      Entry entry = entries.get(activityId);
+      if (entry != null && now - entry.expiresAtNanos < 0) {
+        return entry.recommendation;
+      }
+    }
+    Recommendation loaded = loader.get().orElse(null);
+    store(activityId, loaded, now);
+    return loaded;
+  }
+
+  public void put(Recommendation recommendation) {
+    if (enabled) {
+      store(recommendation.getActivityId(), recommendation, System.nanoTime());
+    }
+  }
+
+  private void store(String activityId, Recommendation recommendation, long now) {
+    long expiresAt = now + (recommendation != null ? ttlNanos : negativeTtlNanos);
+    synchronized (entries) {
+      Entry existing = entries.get(activityId);
+      // A concurrent save may have stored the recommendation while this lookup was loading
+      if (recommendation == null && existing != null && existing.recommendation != null) {
+        return;
+      }
+      entries.put(activityId, new Entry(recommendation, expiresAt));
+    }
+  }
+
+  private record Entry(Recommendation recommendation, long expiresAtNanos) {}
+}
@@ -1,17 +1,53 @@
 package com.fitness.ai_service.service;
 
+import com.fitness.ai_service.client.gemini.GeminiHedgingPolicy;
+import com.fitness.ai_service.dto.CacheHitStats;
+import com.fitness.ai_service.dto.HedgingStats;
+import com.fitness.ai_service.dto.RecommendationPageResponse;
+import com.fitness.ai_service.dto.RuleRoutingStats;
 import com.fitness.ai_service.model.Recommendation;
 import com.fitness.ai_service.repository.RecommendationRepository;
 import java.util.List;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 
 @Slf4j
 @Service
-@AllArgsConstructor
 public class RecommendationService {
   private final RecommendationRepository recommendationRepository;
+  private final RecommendationCache recommendationCache;
+  private final RecommendationStreamHub recommendationStreamHub;
+  private final RecommendationEventHub recommendationEventHub;
+  private final RecommendationReadCache recommendationReadCache;
+  private final RuleBasedRecommender ruleBasedRecommender;
+  private final GeminiHedgingPolicy geminiHedgingPolicy;
+  private final int maxPageSize;
+
+  public RecommendationService(
+      RecommendationRepository recommendationRepository,
+      RecommendationCache recommendationCache,
+      RecommendationStreamHub recommendationStreamHub,
+      RecommendationEventHub recommendationEventHub,
+      RecommendationReadCache recommendationReadCache,
+      RuleBasedRecommender ruleBasedRecommender,
+      GeminiHedgingPolicy geminiHedgingPolicy,
+      @Value("${ai.recommendations.max-page-size:100}") int maxPageSize) {
+    this.recommendationRepository = recommendationRepository;
+    this.recommendationCache = recommendationCache;
+    this.recommendationStreamHub = recommendationStreamHub;
+    this.recommendationEventHub = recommendationEventHub;
+    this.recommendationReadCache = recommendationReadCache;
+    this.ruleBasedRecommender = ruleBasedRecommender;
+    this.geminiHedgingPolicy = geminiHedgingPolicy;
+    this.maxPageSize = maxPageSize;
+  }
 
   public List<Recommendation> getUserRecommendations(String keycloakId) {
     log.info("getUserRecommendations called for keycloakId={}", keycloakId);
@@ -28,11 +64,40 @@ public class RecommendationService {
     }
   }
 
+  public RecommendationPageResponse getUserRecommendationPage(
+      String keycloakId, String cursor, int size) {
+    log.info(
+        "getUserRecommendationPage called for keycloakId={} with cursor={}", keycloakId, cursor);
+    if (cursor != null && !cursor.isBlank() && !ObjectId.isValid(cursor)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed recommendation cursor");
+    }
+    try {
+      int pageSize = Math.max(1, Math.min(size, maxPageSize));
+      // fetch one extra document to learn whether another page exists
+      Limit limit = Limit.of(pageSize + 1);
+      List<Recommendation> recommendations =
+          cursor != null && !cursor.isBlank()
+              ? recommendationRepository.findByKeycloakIdAndIdLessThanOrderByIdDesc(
+                  keycloakId, cursor, limit)
+              : recommendationRepository.findByKeycloakIdOrderByIdDesc(keycloakId, limit);
+      boolean hasMore = recommendations.size() > pageSize;
+      List<Recommendation> page = hasMore ? recommendations.subList(0, pageSize) : recommendations;
+      return RecommendationPageResponse.builder()
+          .items(page)
+          .nextCursor(hasMore ? page.get(page.size() - 1).getId() : null)
+          .build();
+    } catch (Exception e) {
+      log.error("Database error while paging recommendations for keycloakId={}", keycloakId, e);
+      throw new RuntimeException("Failed to fetch recommendations due to system error", e);
+    }
+  }
+
   public Recommendation getActivityRecommendations(String activityId) {
     log.info("getActivityRecommendations called for activityId={}", activityId);
     try {
       Recommendation recommendation =
-          recommendationRepository.findByActivityId(activityId).orElse(null);
+          recommendationReadCache.get(
+              activityId, () -> recommendationRepository.findByActivityId(activityId));
       if (recommendation != null) {
         log.info("Found recommendation for activityId={}", activityId);
         return recommendation;
@@ -43,4 +108,37 @@ public class RecommendationService {
       throw new RuntimeException("Failed to fetch activity recommendations due to system error", e);
     }
   }
+
+  public List<CacheHitStats> getCacheStats() {
+    return recommendationCache.getStats();
+  }
+
+  public List<RuleRoutingStats> getRuleRoutingStats() {
+    return ruleBasedRecommender.getStats();
+  }
+
+  public HedgingStats getHedgingStats() {
+    return geminiHedgingPolicy.getStats();
+  }
+
+  /**
+   * Streams the recommendation for an activity as it is generated. If it has already been stored,
+   * the stream consists of a single {@code complete} event.
+   */
+  public Flux<ServerSentEvent<Object>> streamActivityRecommendation(String activityId) {
+    log.info("streamActivityRecommendation called for activityId={}", activityId);
+    // Subscribe before looking it up, so a recommendation saved in between is not missed
+    Flux<ServerSentEvent<Object>> stream = recommendationStreamHub.subscribe(activityId);
+    Recommendation existing = getActivityRecommendations(activityId);
+    if (existing != null) {
+      return Flux.just(ServerSentEvent.<Object>builder(existing).event("complete").build());
+    }
+    return stream;
+  }
+
+  /** Pushes each of the user's recommendations as it is saved, on any instance. */
+  public Flux<ServerSentEvent<Object>> streamUserRecommendationEvents(String keycloakId) {
+    log.info("streamUserRecommendationEvents called for keycloakId={}", keycloakId);
+    return recommendationEventHub.subscribe(keycloakId);
+  }
 }
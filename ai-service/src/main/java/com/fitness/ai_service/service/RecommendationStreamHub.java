@@ -0,0 +1,183 @@
+package com.fitness.ai_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.ai_service.model.Recommendation;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Per-activity event streams for the recommendation SSE endpoint. Sections of a streamed Gemini
+ * answer are published as they complete, followed by a {@code complete} event carrying the saved
+ * recommendation (or an {@code error} event). Streams replay everything to late subscribers and are
+ * dropped {@code retention} after they finish. A stream that does not finish here, e.g. because the
+ * activity's retry was consumed by another instance, is dropped once it has had no event for {@code
+ * timeout} and no subscriber is left.
+ *
+ * <p>The instance processing an activity also sends each event to the recommendation-stream fanout
+ * exchange, so a client connected to another instance gets it too. Other instances only pass an
+ * event on to streams that already have a subscriber, so they replay what arrived after the first
+ * subscription rather than everything.
+ */
+@Component
+@Slf4j
+public class RecommendationStreamHub {
+  private static final Duration EMIT_TIMEOUT = Duration.ofSeconds(1);
+  private static final String ORIGIN_HEADER = "x-origin";
+  private static final String ACTIVITY_HEADER = "x-activity-id";
+  private static final String EVENT_HEADER = "x-event";
+  private static final Duration SWEEP_INTERVAL = Duration.ofSeconds(10);
+
+  private final Map<String, ActivityStream> streams = new ConcurrentHashMap<>();
+  private final String instanceId = UUID.randomUUID().toString();
+  // One thread, so events leave in the order they were published and sends never block Netty
+  private final Scheduler publisher = Schedulers.newSingle("recommendation-stream-publisher");
+  private final RabbitTemplate rabbitTemplate;
+  private final ObjectMapper objectMapper;
+  private final String exchange;
+  private final Duration retention;
+  private final Duration timeout;
+  private final Disposable sweeper;
+
+  public RecommendationStreamHub(
+      RabbitTemplate rabbitTemplate,
+      ObjectMapper objectMapper,
+      @Value("${rabbitmq.recommendation-stream.exchange:recommendation.stream}") String exchange,
+      @Value("${ai.recommendation-stream.retention:5m}") Duration retention,
+      @Value("${ai.recommendation-stream.timeout:2m}") Duration timeout) {
+    this.rabbitTemplate = rabbitTemplate;
+    this.objectMapper = objectMapper;
+    this.exchange = exchange;
+    this.retention = retention;
+    this.timeout = timeout;
+    this.sweeper = Flux.interval(SWEEP_INTERVAL).subscribe(tick -> removeExpired());
+  }
+
+  @PreDestroy
+  void close() {
+    sweeper.dispose();
+    publisher.dispose();
+  }
+
+  public void publishSection(String activityId, String section, Object data) {
+    publish(activityId, ServerSentEvent.builder(data).event(section).build());
+  }
+
+  // Sections sent before the retry came from an answer that will be discarded
+  public void publishRetry(String activityId, String reason) {
+    publish(activityId, ServerSentEvent.<Object>builder(reason).event("retry").build());
+  }
+
+  public void complete(String activityId, Recommendation recommendation) {
+    publish(activityId, ServerSentEvent.<Object>builder(recommendation).event("complete").build());
+  }
+
+  public void fail(String activityId, String reason) {
+    publish(activityId, ServerSentEvent.<Object>builder(reason).event("error").build());
+  }
+
+  /**
+   * Streams the activity's events, starting with any already published. Ends after the {@code
+   * complete} or {@code error} event, or after {@code timeout} if the activity is not processed.
+   * The stream exists once this returns, so events published from then on are not missed.
+   */
+  public Flux<ServerSentEvent<Object>> subscribe(String activityId) {
+    ActivityStream stream = streams.computeIfAbsent(activityId, id -> new ActivityStream());
+    return stream.sink.asFlux().take(timeout);
+  }
+
+  // Auto-acked: a lost event only affects clients connected to another instance than the one
+  // processing the activity, and they still find the recommendation once it is stored
+  @RabbitListener(queues = "#{recommendationStreamQueue.name}")
+  public void onEvent(Message message) throws IOException {
+    MessageProperties properties = message.getMessageProperties();
+    if (instanceId.equals(properties.getHeader(ORIGIN_HEADER))) {
+      return;
+    }
+    String activityId = properties.getHeader(ACTIVITY_HEADER);
+    ActivityStream stream = streams.get(activityId);
+    if (stream == null) {
+      return;
+    }
+    String event = properties.getHeader(EVENT_HEADER);
+    Class<?> dataType = "complete".equals(event) ? Recommendation.class : Object.class;
+    Object data = objectMapper.readValue(message.getBody(), dataType);
+    deliver(activityId, stream, ServerSentEvent.builder(data).event(event).build());
+  }
+
+  private void publish(String activityId, ServerSentEvent<Object> event) {
+    deliver(activityId, streams.computeIfAbsent(activityId, id -> new ActivityStream()), event);
+    publisher.schedule(() -> send(activityId, event));
+  }
+
+  private void send(String activityId, ServerSentEvent<Object> event) {
+    try {
+      Message message =
+          MessageBuilder.withBody(objectMapper.writeValueAsBytes(event.data()))
+              .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+              .setHeader(ORIGIN_HEADER, instanceId)
+              .setHeader(ACTIVITY_HEADER, activityId)
+              .setHeader(EVENT_HEADER, event.event())
+              .build();
+      rabbitTemplate.send(exchange, "", message);
+    } catch (IOException | AmqpException e) {
+      log.warn(
+          "Failed to send {} event for activity={} to other instances: {}",
+          event.event(),
+          activityId,
+          e.toString());
+    }
+  }
+
+  private void deliver(String activityId, ActivityStream stream, ServerSentEvent<Object> event) {
+    stream.lastEventNanos = System.nanoTime();
+    stream.sink.emitNext(event, Sinks.EmitFailureHandler.busyLooping(EMIT_TIMEOUT));
+    if (isFinal(event.event())) {
+      stream.finished = true;
+      stream.sink.tryEmitComplete();
+    }
+  }
+
+  // Finished streams are kept for late subscribers; unfinished ones until their subscribers, which
+  // give up after timeout, are gone. Nothing may ever be published for an unknown activity.
+  private void removeExpired() {
+    long now = System.nanoTime();
+    streams
+        .values()
+        .removeIf(
+            stream ->
+                stream.finished
+                    ? now - stream.lastEventNanos > retention.toNanos()
+                    : now - stream.lastEventNanos > timeout.toNanos()
+                        && stream.sink.currentSubscriberCount() == 0);
+  }
+
+  private static boolean isFinal(String event) {
+    return "complete".equals(event) || "error".equals(event);
+  }
+
+  private static final class ActivityStream {
+    private final Sinks.Many<ServerSentEvent<Object>> sink = Sinks.many().replay().all();
+    // Creation time until the first event
+    private volatile long lastEventNanos = System.nanoTime();
+    private volatile boolean finished;
+  }
+}
@@ -0,0 +1,378 @@
+package com.fitness.ai_service.service;
+
+import com.fitness.ai_service.dto.ActivityObject;
+import com.fitness.ai_service.dto.ActivityObjectType;
+import com.fitness.ai_service.dto.RuleRoutingStats;
+import com.fitness.ai_service.dto.SampleSeriesSummary;
+import com.fitness.ai_service.model.Recommendation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deterministic fast path for routine activities. When an activity of a configured type has a
+ * duration, speed, calorie rate and heart rate within its {@link ActivityRuleTable} ranges and
+ * carries no metrics the rules do not understand, the recommendation is assembled from the speed
+ * band, the heart-rate zone and the session length in microseconds. Anything else is left to
+ * Gemini, and the reason is counted per type.
+ */
+@Component
+@Slf4j
+public class RuleBasedRecommender {
+  static final Set<String> KNOWN_METRICS =
+      Set.of(
+          "distance",
+          "averagePace",
+          "averageSpeed",
+          "averageHeartRate",
+          "maxHeartRate",
+          "steps",
+          "elevationGain");
+  static final Set<String> KNOWN_SAMPLES = Set.of("heartRate");
+  static final String HEART_RATE_SAMPLES = "heartRate";
+
+  private static final String[] ZONE_NAMES = {
+    "recovery", "aerobic base", "tempo", "threshold", "maximal"
+  };
+  private static final String[] ZONE_IMPROVEMENTS = {
+    "The effort stayed very light; include a few minutes at a harder effort to keep improving.",
+    "A good aerobic base effort; most of the weekly volume can stay in this zone.",
+    "Alternate moderate sessions like this one with truly easy ones, so hard days stay hard.",
+    "Threshold efforts build speed but need recovery; follow this one with an easy day.",
+    "Keep near-maximal sessions short and infrequent to limit fatigue and injury risk."
+  };
+
+  private final boolean enabled;
+  private final Set<ActivityObjectType> types;
+  private final int maxHeartRate;
+  private final double geminiSampleRate;
+  private final MeterRegistry meterRegistry;
+  private final Map<ActivityObjectType, TypeStats> stats = new EnumMap<>(ActivityObjectType.class);
+
+  public RuleBasedRecommender(
+      MeterRegistry meterRegistry,
+      @Value("${ai.rules.enabled:true}") boolean enabled,
+      @Value("${ai.rules.types:WALKING,RUNNING,CYCLING}") List<ActivityObjectType> types,
+      @Value("${ai.rules.max-heart-rate:190}") int maxHeartRate,
+      @Value("${ai.rules.gemini-sample-rate:0}") double geminiSampleRate) {
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.types = types.isEmpty() ? EnumSet.noneOf(ActivityObjectType.class) : EnumSet.copyOf(types);
+    this.maxHeartRate = maxHeartRate;
+    this.geminiSampleRate = geminiSampleRate;
+    for (ActivityObjectType type : ActivityObjectType.values()) {
+      TypeStats typeStats = new TypeStats(type);
+      stats.put(type, typeStats);
+      String tag = tag(type);
+      FunctionCounter.builder("ai.rules.decisions", typeStats.local, LongAdder::sum)
+          .tags("type", tag, "route", "local", "reason", "in-range")
+          .register(meterRegistry);
+      Gauge.builder("ai.rules.local.ratio", typeStats, TypeStats::localRatio)
+          .tags("type", tag)
+          .register(meterRegistry);
+    }
+  }
+
+  /** The rule-based recommendation, or empty when the activity should go to Gemini. */
+  public Optional<Recommendation> recommend(ActivityObject activity) {
+    if (!enabled || activity.getType() == null) {
+      return Optional.empty();
+    }
+    TypeStats typeStats = stats.get(activity.getType());
+    Evaluation evaluation = evaluate(activity);
+    if (evaluation.geminiReason() != null) {
+      typeStats.gemini(evaluation.geminiReason()).increment();
+      log.debug("Routing activity={} to Gemini: {}", activity.getId(), evaluation.geminiReason());
+      return Optional.empty();
+    }
+    typeStats.local.increment();
+    log.debug("Recommendation for activity={} generated by rules", activity.getId());
+    return Optional.of(evaluation.recommendation());
+  }
+
+  public List<RuleRoutingStats> getStats() {
+    return Arrays.stream(ActivityObjectType.values())
+        .map(
+            type -> {
+              TypeStats typeStats = stats.get(type);
+              Map<String, Long> reasons = new TreeMap<>();
+              typeStats.geminiReasons.forEach((reason, count) -> reasons.put(reason, count.sum()));
+              return RuleRoutingStats.builder()
+                  .type(type)
+                  .local(typeStats.local.sum())
+                  .gemini(typeStats.geminiTotal())
+                  .localRatio(typeStats.localRatio())
+                  .geminiReasons(reasons)
+                  .build();
+            })
+        .toList();
+  }
+
+  private Evaluation evaluate(ActivityObject activity) {
+    ActivityRuleTable table =
+        types.contains(activity.getType())
+            ? ActivityRuleTable.TABLES.get(activity.getType())
+            : null;
+    if (table == null) {
+      return Evaluation.gemini("type-not-covered");
+    }
+    Integer duration = activity.getDuration();
+    if (duration == null || duration <= 0) {
+      return Evaluation.gemini("missing-duration");
+    }
+    if (!table.durationMinutes().contains(duration)) {
+      return Evaluation.gemini("duration-out-of-range");
+    }
+
+    Map<String, Object> metrics =
+        activity.getAdditionalMetrics() != null ? activity.getAdditionalMetrics() : Map.of();
+    Map<String, SampleSeriesSummary> samples =
+        activity.getSampleSummaries() != null ? activity.getSampleSummaries() : Map.of();
+    if (!KNOWN_METRICS.containsAll(metrics.keySet())) {
+      return Evaluation.gemini("unknown-metric");
+    }
+    if (!KNOWN_SAMPLES.containsAll(samples.keySet())) {
+      return Evaluation.gemini("unknown-samples");
+    }
+
+    Integer calories = activity.getCaloriesBurned();
+    if (calories != null && !table.caloriesPerMinute().contains((double) calories / duration)) {
+      return Evaluation.gemini("calories-out-of-range");
+    }
+
+    Double speed = speedKmh(metrics, duration);
+    if (speed == null) {
+      return Evaluation.gemini("missing-speed");
+    }
+    if (!table.speedKmh().contains(speed)) {
+      return Evaluation.gemini("speed-out-of-range");
+    }
+
+    SampleSeriesSummary heartRateSamples = samples.get(HEART_RATE_SAMPLES);
+    Double averageHeartRate = number(metrics.get("averageHeartRate"));
+    if (averageHeartRate == null && heartRateSamples != null) {
+      averageHeartRate = heartRateSamples.getMean();
+    }
+    Double peakHeartRate = number(metrics.get("maxHeartRate"));
+    if (peakHeartRate == null && heartRateSamples != null) {
+      peakHeartRate = heartRateSamples.getMax();
+    }
+    if (averageHeartRate != null && (averageHeartRate < 40 || averageHeartRate > maxHeartRate)) {
+      return Evaluation.gemini("heart-rate-out-of-range");
+    }
+    if (peakHeartRate != null && peakHeartRate > maxHeartRate * 1.05) {
+      return Evaluation.gemini("heart-rate-out-of-range");
+    }
+
+    // A small, stable share keeps going to Gemini so the two can be compared
+    if (activity.getId() != null
+        && Math.floorMod(activity.getId().hashCode(), 10_000) < geminiSampleRate * 10_000) {
+      return Evaluation.gemini("sampled");
+    }
+    return new Evaluation(
+        build(activity, table, duration, calories, speed, averageHeartRate), null);
+  }
+
+  private Recommendation build(
+      ActivityObject activity,
+      ActivityRuleTable table,
+      int duration,
+      Integer calories,
+      double speed,
+      Double averageHeartRate) {
+    ActivityRuleTable.SpeedBand band = table.bandFor(speed);
+    String speedText =
+        table.describeAsPace()
+            ? formatPace(speed) + " per km"
+            : String.format(Locale.ROOT, "%.1f km/h", speed);
+
+    StringBuilder overall =
+        new StringBuilder(
+            String.format(
+                Locale.ROOT,
+                "A %d-minute %s %s at %s",
+                duration,
+                band.name(),
+                table.noun(),
+                speedText));
+    if (calories != null) {
+      overall.append(", burning ").append(calories).append(" kcal");
+    }
+    overall.append(". ");
+
+    List<String> improvements = new ArrayList<>();
+    List<String> suggestions = new ArrayList<>();
+    List<String> safety = new ArrayList<>();
+    improvements.add(band.improvement());
+    suggestions.add(band.workout() + ": " + band.description());
+
+    int zone = 0;
+    if (averageHeartRate != null) {
+      zone = heartRateZone(averageHeartRate);
+      overall.append(
+          String.format(
+              Locale.ROOT,
+              "An average heart rate of %.0f bpm, %.0f%% of maximum, puts the session in zone %d"
+                  + " (%s).",
+              averageHeartRate,
+              100 * averageHeartRate / maxHeartRate,
+              zone,
+              ZONE_NAMES[zone - 1]));
+      improvements.add(ZONE_IMPROVEMENTS[zone - 1]);
+    } else {
+      overall.append("Without heart-rate data the effort is judged from the pace alone.");
+      improvements.add(
+          "Record heart rate on your next session to get effort-based recommendations.");
+    }
+
+    if (duration < 20) {
+      improvements.add(
+          "Extend the session towards 30 minutes when time allows to build endurance.");
+    }
+    if (zone >= 4) {
+      suggestions.add(
+          "Recovery: an easy 30-minute session or a rest day before the next hard one.");
+    }
+
+    safety.add(
+        switch (activity.getType()) {
+          case CYCLING -> "Wear a helmet and use lights when visibility is low.";
+          case RUNNING -> "Increase weekly distance by no more than about 10% at a time.";
+          default -> "Wear supportive shoes and stay visible near traffic.";
+        });
+    if (duration >= table.longSessionMinutes()) {
+      safety.add("Bring water, and food for longer sessions, and drink regularly on the way.");
+    }
+    if (zone == 5) {
+      safety.add("Slow down or stop if you feel dizzy, faint or unusually short of breath.");
+    }
+
+    return Recommendation.builder()
+        .activityId(activity.getId())
+        .keycloakId(activity.getKeycloakId())
+        .type(activity.getType())
+        .recommendation(overall.toString())
+        .improvements(improvements)
+        .suggestions(suggestions)
+        .safety(safety)
+        .build();
+  }
+
+  // Zones as shares of the maximum heart rate: below 60%, 60-70%, 70-80%, 80-90% and above
+  private int heartRateZone(double heartRate) {
+    double share = heartRate / maxHeartRate;
+    if (share < 0.6) {
+      return 1;
+    }
+    if (share >= 0.9) {
+      return 5;
+    }
+    return (int) (share * 10) - 4;
+  }
+
+  // averageSpeed in km/h, else averagePace in min/km ("5:21" or 5.35), else distance in km over the
+  // duration
+  private static Double speedKmh(Map<String, Object> metrics, int durationMinutes) {
+    Double speed = number(metrics.get("averageSpeed"));
+    if (speed != null) {
+      return speed;
+    }
+    Double pace = pace(metrics.get("averagePace"));
+    if (pace != null && pace > 0) {
+      return 60 / pace;
+    }
+    Double distance = number(metrics.get("distance"));
+    if (distance != null) {
+      return distance * 60 / durationMinutes;
+    }
+    return null;
+  }
+
+  private static Double pace(Object value) {
+    if (value instanceof String text && text.contains(":")) {
+      String[] parts = text.trim().split(":", 2);
+      try {
+        return Integer.parseInt(parts[0]) + Integer.parseInt(parts[1]) / 60.0;
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return number(value);
+  }
+
+  private static Double number(Object value) {
+    if (value instanceof Number number) {
+      return number.doubleValue();
+    }
+    if (value instanceof String text) {
+      try {
+        return Double.parseDouble(text.trim());
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private static String formatPace(double speedKmh) {
+    long seconds = Math.round(3600 / speedKmh);
+    return String.format(Locale.ROOT, "%d:%02d", seconds / 60, seconds % 60);
+  }
+
+  private static String tag(ActivityObjectType type) {
+    return type.name().toLowerCase(Locale.ROOT);
+  }
+
+  private record Evaluation(Recommendation recommendation, String geminiReason) {
+    static Evaluation gemini(String reason) {
+      return new Evaluation(null, reason);
+    }
+  }
+
+  private final class TypeStats {
+    private final ActivityObjectType type;
+    private final LongAdder local = new LongAdder();
+    private final Map<String, LongAdder> geminiReasons = new ConcurrentHashMap<>();
+
+    private TypeStats(ActivityObjectType type) {
+      this.type = type;
+    }
+
+    private LongAdder gemini(String reason) {
+      return geminiReasons.computeIfAbsent(
+          reason,
+          key -> {
+            LongAdder count = new LongAdder();
+            FunctionCounter.builder("ai.rules.decisions", count, LongAdder::sum)
+                .tags("type", tag(type), "route", "gemini", "reason", key)
+                .register(meterRegistry);
+            return count;
+          });
+    }
+
+    private long geminiTotal() {
+      return geminiReasons.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private double localRatio() {
+      long local = this.local.sum();
+      long total = local + geminiTotal();
+      return total == 0 ? 0 : (double) local / total;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.fitness.ai_service.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Incrementally parses the analysis JSON while Gemini is still generating it. Text chunks are fed
+ * to Jackson's non-blocking parser as they arrive, and each section is returned as soon as its
+ * closing token has been read: {@code overall} once the {@code analysis.overall} string is
+ * complete, and {@code improvements}, {@code suggestions} and {@code safety} once their arrays
+ * close. Anything before the first '{' (such as a markdown code fence) and after the root object is
+ * ignored. Not thread-safe; use one instance per response.
+ */
+@Slf4j
+final class StreamingAnalysisParser {
+  static final String OVERALL = "overall";
+  private static final String ANALYSIS = "analysis";
+  private static final Set<String> ARRAY_SECTIONS = Set.of("improvements", "suggestions", "safety");
+
+  private final ObjectMapper objectMapper;
+  private final JsonParser parser;
+  private final ByteArrayFeeder feeder;
+
+  private boolean started;
+  private boolean finished;
+  private int depth;
+  private String topLevelField;
+  private TokenBuffer capture;
+  private String captureSection;
+  private int captureDepth;
+
+  StreamingAnalysisParser(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    try {
+      this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to create non-blocking JSON parser", e);
+    }
+    this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+  }
+
+  record Section(String name, JsonNode value) {}
+
+  /** Feeds the next chunk of generated text and returns the sections it completed, if any. */
+  List<Section> feed(String chunk) {
+    if (finished || chunk == null || chunk.isEmpty()) {
+      return List.of();
+    }
+    if (!started) {
+      int start = chunk.indexOf('{');
+      if (start < 0) {
+        return List.of();
+      }
+      started = true;
+      chunk = chunk.substring(start);
+    }
+
+    List<Section> sections = new ArrayList<>();
+    try {
+      byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+      feeder.feedInput(bytes, 0, bytes.length);
+      JsonToken token;
+      while (!finished && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
+        if (token == null) {
+          finished = true;
+          break;
+        }
+        handle(token, sections);
+      }
+    } catch (IOException e) {
+      // The complete answer is parsed again at the end, which reports the error properly
+      log.debug("Stopped incremental parsing of Gemini response: {}", e.getMessage());
+      finished = true;
+    }
+    return sections;
+  }
+
+  private void handle(JsonToken token, List<Section> sections) throws IOException {
+    if (capture != null) {
+      capture.copyCurrentEvent(parser);
+    }
+    if (token.isStructStart()) {
+      if (capture == null
+          && depth == 1
+          && token == JsonToken.START_ARRAY
+          && ARRAY_SECTIONS.contains(topLevelField)) {
+        capture = new TokenBuffer(parser);
+        capture.copyCurrentEvent(parser);
+        captureSection = topLevelField;
+        captureDepth = depth;
+      }
+      depth++;
+      return;
+    }
+    if (token.isStructEnd()) {
+      depth--;
+      if (capture != null && depth == captureDepth) {
+        sections.add(new Section(captureSection, objectMapper.readTree(capture.asParser())));
+        capture = null;
+      }
+      if (depth == 0) {
+        finished = true;
+      }
+      return;
+    }
+    if (token == JsonToken.FIELD_NAME) {
+      if (depth == 1) {
+        topLevelField = parser.currentName();
+      }
+      return;
+    }
+    if (depth == 2
+        && token == JsonToken.VALUE_STRING
+        && ANALYSIS.equals(topLevelField)
+        && OVERALL.equals(parser.currentName())) {
+      sections.add(new Section(OVERALL, TextNode.valueOf(parser.getText())));
+    }
+  }
+}
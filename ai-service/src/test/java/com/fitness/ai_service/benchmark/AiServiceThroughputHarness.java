@@ -0,0 +1,432 @@
+package com.fitness.ai_service.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fitness.ai_service.client.gemini.GeminiCircuitBreaker;
+import com.fitness.ai_service.client.gemini.GeminiClient;
+import com.fitness.ai_service.client.gemini.GeminiConcurrencyLimit;
+import com.fitness.ai_service.client.gemini.GeminiHedgingPolicy;
+import com.fitness.ai_service.client.gemini.GeminiRateLimiter;
+import com.fitness.ai_service.client.gemini.GeminiResponseParser;
+import com.fitness.ai_service.config.VersionedMessageConverter;
+import com.fitness.ai_service.dto.ActivityObject;
+import com.fitness.ai_service.dto.ActivityObjectType;
+import com.fitness.ai_service.model.Recommendation;
+import com.fitness.ai_service.repository.CachedRecommendationRepository;
+import com.fitness.ai_service.repository.RecommendationClaimRepository;
+import com.fitness.ai_service.repository.RecommendationRepository;
+import com.fitness.ai_service.service.AICallerService;
+import com.fitness.ai_service.service.ActivityDeduplicator;
+import com.fitness.ai_service.service.ActivityFingerprinter;
+import com.fitness.ai_service.service.ActivityMessageListener;
+import com.fitness.ai_service.service.ActivityRetryRouter;
+import com.fitness.ai_service.service.ActivitySpool;
+import com.fitness.ai_service.service.FairActivityScheduler;
+import com.fitness.ai_service.service.RecommendationCache;
+import com.fitness.ai_service.service.RecommendationEventHub;
+import com.fitness.ai_service.service.RecommendationReadCache;
+import com.fitness.ai_service.service.RecommendationStreamHub;
+import com.fitness.ai_service.service.RuleBasedRecommender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Pushes synthetic activities through the real consumer pipeline — {@link ActivityMessageListener},
+ * {@link AICallerService}, {@link GeminiClient} over HTTP and the retry routing — against a {@link
+ * FakeGeminiServer}, and reports throughput, end-to-end latency percentiles (first delivery to
+ * {@link RecommendationRepository#upsertByActivityId}) and retry counts. RabbitMQ and MongoDB are
+ * replaced by in-memory stand-ins: deliveries are bounded like the listener container's prefetch,
+ * and messages sent to a retry queue are redelivered after that queue's delay.
+ *
+ * <p>Run the main method from the test classpath with optional {@code key=value} arguments, e.g.
+ * {@code messages=5000 latency-median-ms=800 error-rate=0.02 rate-limit-rate=0.05}. With {@code
+ * min-throughput} or {@code max-p99-ms} set, it exits with status 1 when the run misses them, so it
+ * can gate a release.
+ */
+public class AiServiceThroughputHarness {
+  private static final String QUEUE = "activity.queue";
+
+  private final Map<String, String> options;
+  private final VersionedMessageConverter messageConverter =
+      new VersionedMessageConverter(MessageProperties.CONTENT_TYPE_JSON);
+  private final Map<String, Long> firstDelivery = new ConcurrentHashMap<>();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder parked = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final Sinks.Many<Message> deliveries = Sinks.many().unicast().onBackpressureBuffer();
+
+  private GeminiConcurrencyLimit concurrencyLimit;
+  private GeminiHedgingPolicy hedgingPolicy;
+  private long[] latencies;
+  private int completed;
+  private CountDownLatch done;
+
+  private AiServiceThroughputHarness(Map<String, String> options) {
+    this.options = options;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      String[] keyValue = arg.split("=", 2);
+      options.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "true");
+    }
+    ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    ((Logger) LoggerFactory.getLogger("com.fitness")).setLevel(Level.OFF);
+    System.exit(new AiServiceThroughputHarness(options).run() ? 0 : 1);
+  }
+
+  private boolean run() throws Exception {
+    int messages = intOption("messages", 2000);
+    int inFlight = intOption("in-flight", 100);
+    double minThroughput = doubleOption("min-throughput", 0);
+    long maxP99Millis = intOption("max-p99-ms", 0);
+
+    try (FakeGeminiServer gemini =
+        FakeGeminiServer.builder()
+            .latency(
+                FakeGeminiServer.Latency.logNormal(
+                    Duration.ofMillis(intOption("latency-median-ms", 500)),
+                    doubleOption("latency-sigma", 0.5)))
+            .errorRate(doubleOption("error-rate", 0.01))
+            .rateLimitRate(doubleOption("rate-limit-rate", 0.02))
+            .start()) {
+      ActivityMessageListener listener = createListener(gemini);
+      latencies = new long[messages];
+      done = new CountDownLatch(messages);
+
+      // Like the listener container: at most in-flight unacked deliveries at any time
+      deliveries.asFlux().flatMap(message -> deliver(listener, message), inFlight).subscribe();
+
+      long start = System.nanoTime();
+      for (int i = 0; i < messages; i++) {
+        ActivityObject activity = syntheticActivity(i);
+        firstDelivery.put(activity.getId(), System.nanoTime());
+        enqueue(messageConverter.toMessage(activity, new MessageProperties()));
+      }
+      if (!done.await(intOption("timeout-s", 600), TimeUnit.SECONDS)) {
+        System.out.printf(
+            "Timed out with %d of %d messages outstanding%n", done.getCount(), messages);
+        return false;
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+
+      long[] sorted = Arrays.copyOf(latencies, completed);
+      Arrays.sort(sorted);
+      double throughput = messages / seconds;
+      long p99 = percentileMillis(sorted, 0.99);
+      System.out.printf(
+          "messages=%d saved=%d parked=%d failed=%d retries=%d in %.1fs -> %.1f messages/s%n",
+          messages, completed, parked.sum(), failed.sum(), retries.sum(), seconds, throughput);
+      System.out.printf(
+          "end-to-end latency ms: p50=%d p90=%d p99=%d max=%d%n",
+          percentileMillis(sorted, 0.50),
+          percentileMillis(sorted, 0.90),
+          p99,
+          percentileMillis(sorted, 1.0));
+      System.out.printf(
+          "gemini requests=%d ok=%d 5xx=%d 429=%d%n",
+          gemini.requests(), gemini.succeeded(), gemini.serverErrors(), gemini.rateLimited());
+      System.out.printf("gemini concurrency limit at the end=%d%n", concurrencyLimit.limit());
+      if (booleanOption("hedging", false)) {
+        System.out.println(hedgingPolicy.getStats());
+      }
+
+      boolean passed = true;
+      if (minThroughput > 0 && throughput < minThroughput) {
+        System.out.printf(
+            "FAIL: throughput %.1f below min-throughput %.1f%n", throughput, minThroughput);
+        passed = false;
+      }
+      if (maxP99Millis > 0 && p99 > maxP99Millis) {
+        System.out.printf("FAIL: p99 %d ms above max-p99-ms %d%n", p99, maxP99Millis);
+        passed = false;
+      }
+      return passed;
+    }
+  }
+
+  private Mono<Void> deliver(ActivityMessageListener listener, Message message) {
+    message.getMessageProperties().setInferredArgumentType(ActivityObject.class);
+    ActivityObject activity = (ActivityObject) messageConverter.fromMessage(message);
+    return listener
+        .processActivity(activity, message)
+        .onErrorResume(
+            e -> {
+              // The container would nack and requeue; the harness counts it instead
+              failed.increment();
+              done.countDown();
+              return Mono.empty();
+            });
+  }
+
+  private void enqueue(Message message) {
+    deliveries.emitNext(message, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+  }
+
+  private synchronized void recordSaved(Recommendation recommendation) {
+    Long deliveredAt = firstDelivery.get(recommendation.getActivityId());
+    if (deliveredAt != null && completed < latencies.length) {
+      latencies[completed++] = System.nanoTime() - deliveredAt;
+      done.countDown();
+    }
+  }
+
+  // Stands in for the broker: retry queues redeliver after their TTL, the parking queue keeps the
+  // message
+  private void routeRepublished(String routingKey, Message message) {
+    if (routingKey.endsWith(".parking")) {
+      parked.increment();
+      done.countDown();
+      return;
+    }
+    retries.increment();
+    String delay = routingKey.substring(routingKey.lastIndexOf('.') + 1, routingKey.length() - 2);
+    Mono.delay(Duration.ofMillis(Long.parseLong(delay))).subscribe(tick -> enqueue(message));
+  }
+
+  private ActivityMessageListener createListener(FakeGeminiServer gemini) {
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    concurrencyLimit =
+        new GeminiConcurrencyLimit(
+            new SimpleMeterRegistry(),
+            booleanOption("adaptive", true),
+            intOption("initial-limit", 8),
+            1,
+            intOption("max-limit", intOption("in-flight", 100)),
+            0.7,
+            Duration.ofSeconds(20));
+    GeminiRateLimiter rateLimiter =
+        new GeminiRateLimiter(intOption("requests-per-minute", 600_000), intOption("burst", 100));
+    hedgingPolicy =
+        new GeminiHedgingPolicy(
+            new SimpleMeterRegistry(),
+            rateLimiter,
+            booleanOption("hedging", false),
+            intOption("hedge-percentile", 95),
+            0.05,
+            Duration.ofMillis(intOption("hedge-min-delay-ms", 100)),
+            1000,
+            100);
+    GeminiCircuitBreaker circuitBreaker =
+        new GeminiCircuitBreaker(
+            new SimpleMeterRegistry(),
+            true,
+            intOption("breaker-threshold", 5),
+            Duration.ofSeconds(5));
+    GeminiClient geminiClient =
+        new GeminiClient(WebClient.builder(), concurrencyLimit, hedgingPolicy, circuitBreaker);
+    ReflectionTestUtils.setField(geminiClient, "apiKey", "fake");
+    ReflectionTestUtils.setField(geminiClient, "apiUrl", gemini.generateUrl());
+    ReflectionTestUtils.setField(geminiClient, "streamUrl", gemini.streamUrl());
+    ReflectionTestUtils.setField(geminiClient, "timeout", Duration.ofSeconds(30));
+
+    RecommendationStreamHub streamHub =
+        new RecommendationStreamHub(
+            new InMemoryRabbitTemplate((routingKey, message) -> {}),
+            objectMapper,
+            "recommendation.stream",
+            Duration.ofSeconds(1),
+            Duration.ofSeconds(1));
+
+    RecommendationCache cache =
+        new RecommendationCache(
+            stub(
+                CachedRecommendationRepository.class, Map.of("findById", args -> Optional.empty())),
+            new ActivityFingerprinter(5, 25, 2),
+            new SimpleMeterRegistry(),
+            booleanOption("cache", false),
+            10_000,
+            Duration.ofDays(7));
+
+    AICallerService aiCallerService =
+        new AICallerService(
+            geminiClient,
+            new GeminiResponseParser(objectMapper),
+            objectMapper,
+            rateLimiter,
+            cache,
+            streamHub,
+            new FairActivityScheduler(
+                new SimpleMeterRegistry(),
+                concurrencyLimit,
+                Duration.ofMinutes(2),
+                Duration.ofMinutes(30)),
+            // Off by default, so the run measures the Gemini path; rules=true adds the fast path
+            new RuleBasedRecommender(
+                new SimpleMeterRegistry(),
+                booleanOption("rules", false),
+                List.of(
+                    ActivityObjectType.WALKING,
+                    ActivityObjectType.RUNNING,
+                    ActivityObjectType.CYCLING),
+                190,
+                0),
+            circuitBreaker);
+    ReflectionTestUtils.setField(
+        aiCallerService, "streamingEnabled", booleanOption("streaming", true));
+
+    List<Duration> retryDelays =
+        Arrays.stream(options.getOrDefault("retry-delays-ms", "100,200,400").split(","))
+            .map(delay -> Duration.ofMillis(Long.parseLong(delay.trim())))
+            .toList();
+    ActivityRetryRouter retryRouter =
+        new ActivityRetryRouter(
+            new InMemoryRabbitTemplate(this::routeRepublished),
+            QUEUE,
+            retryDelays,
+            Duration.ofSeconds(5));
+
+    RecommendationRepository repository =
+        stub(
+            RecommendationRepository.class,
+            Map.of(
+                "upsertByActivityId",
+                args -> {
+                  recordSaved((Recommendation) args[0]);
+                  return args[0];
+                },
+                "existsByActivityId",
+                args -> false));
+    RecommendationClaimRepository claims =
+        stub(
+            RecommendationClaimRepository.class,
+            Map.of("tryClaim", args -> true, "release", args -> null));
+    return new ActivityMessageListener(
+        aiCallerService,
+        repository,
+        streamHub,
+        retryRouter,
+        new RecommendationReadCache(true, 10_000, Duration.ofMinutes(10), Duration.ofSeconds(2)),
+        new ActivityDeduplicator(repository, claims, Duration.ofMinutes(10), 100_000),
+        circuitBreaker,
+        // Disabled: while the breaker is open, activities are deferred through the retry queues
+        new ActivitySpool(
+            objectMapper,
+            new SimpleMeterRegistry(),
+            false,
+            Path.of("activity-spool.dat"),
+            DataSize.ofMegabytes(1)),
+        // Events are serialized and published as in the service, but nobody subscribes here
+        new RecommendationEventHub(
+            new InMemoryRabbitTemplate((routingKey, message) -> {}),
+            objectMapper,
+            new SimpleMeterRegistry(),
+            "recommendation.ready",
+            Duration.ofSeconds(30)));
+  }
+
+  // Repository stand-in that implements only the given methods
+  @SuppressWarnings("unchecked")
+  private static <T> T stub(Class<T> type, Map<String, StubMethod> methods) {
+    return (T)
+        Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              StubMethod stubMethod = methods.get(method.getName());
+              if (stubMethod != null) {
+                return stubMethod.invoke(args);
+              }
+              return switch (method.getName()) {
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> type.getSimpleName() + " stub";
+                default -> throw new UnsupportedOperationException(method.getName());
+              };
+            });
+  }
+
+  private static ActivityObject syntheticActivity(int index) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    ActivityObjectType[] types = ActivityObjectType.values();
+    ActivityObject activity = new ActivityObject();
+    activity.setId(String.format("%024x", index));
+    activity.setKeycloakId("user-" + random.nextInt(100));
+    activity.setType(types[random.nextInt(types.length)]);
+    activity.setDuration(random.nextInt(10, 120));
+    activity.setCaloriesBurned(random.nextInt(50, 1200));
+    activity.setStartTime(LocalDateTime.now().minusMinutes(random.nextInt(10_000)));
+    activity.setAdditionalMetrics(
+        Map.of("distance", random.nextInt(1, 30), "averageHeartRate", random.nextInt(100, 180)));
+    return activity;
+  }
+
+  private static long percentileMillis(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(index, 0)]);
+  }
+
+  private int intOption(String name, int defaultValue) {
+    return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
+  }
+
+  private double doubleOption(String name, double defaultValue) {
+    return Double.parseDouble(options.getOrDefault(name, String.valueOf(defaultValue)));
+  }
+
+  private boolean booleanOption(String name, boolean defaultValue) {
+    return Boolean.parseBoolean(options.getOrDefault(name, String.valueOf(defaultValue)));
+  }
+
+  @FunctionalInterface
+  private interface StubMethod {
+    Object invoke(Object[] args);
+  }
+
+  // Publishes synchronously to the harness instead of a broker, and confirms immediately
+  private static final class InMemoryRabbitTemplate extends RabbitTemplate {
+    private final BiConsumer<String, Message> router;
+
+    private InMemoryRabbitTemplate(BiConsumer<String, Message> router) {
+      this.router = router;
+    }
+
+    @Override
+    public <T> T invoke(OperationsCallback<T> action) {
+      return action.doInRabbit(this);
+    }
+
+    @Override
+    public void send(String exchange, String routingKey, Message message) {
+      router.accept(routingKey, message);
+    }
+
+    @Override
+    public boolean waitForConfirms(long timeout) {
+      return true;
+    }
+
+    @Override
+    public void waitForConfirmsOrDie(long timeout) {}
+  }
+}
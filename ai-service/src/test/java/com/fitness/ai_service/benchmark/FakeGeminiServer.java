@@ -0,0 +1,285 @@
+package com.fitness.ai_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embeddable stand-in for the Gemini API, for load tests that must not use real quota. It answers
+ * {@code :generateContent} with a JSON envelope and {@code :streamGenerateContent} with server-sent
+ * events, after a latency drawn from a configurable distribution, and fails a configurable share of
+ * requests with 500 or 429. Answers are taken round-robin from the canned analysis texts. Each
+ * request is handled on its own virtual thread, so thousands of slow requests can be in flight.
+ *
+ * <pre>{@code
+ * try (FakeGeminiServer gemini =
+ *     FakeGeminiServer.builder()
+ *         .latency(FakeGeminiServer.Latency.logNormal(Duration.ofMillis(800), 0.5))
+ *         .errorRate(0.02)
+ *         .rateLimitRate(0.05)
+ *         .start()) {
+ *   // point gemini.api.url at gemini.generateUrl()
+ * }
+ * }</pre>
+ */
+public final class FakeGeminiServer implements AutoCloseable {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Latency latency;
+  private final double errorRate;
+  private final double rateLimitRate;
+  private final List<String> answers;
+  private final int streamChunks;
+  private final AtomicLong nextAnswer = new AtomicLong();
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder succeeded = new LongAdder();
+  private final LongAdder serverErrors = new LongAdder();
+  private final LongAdder rateLimited = new LongAdder();
+
+  private FakeGeminiServer(Builder builder) throws IOException {
+    this.latency = builder.latency;
+    this.errorRate = builder.errorRate;
+    this.rateLimitRate = builder.rateLimitRate;
+    this.answers = builder.answers.isEmpty() ? List.of(defaultAnswer()) : builder.answers;
+    this.streamChunks = Math.max(builder.streamChunks, 1);
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    this.server = HttpServer.create(new InetSocketAddress("localhost", builder.port), 1024);
+    this.server.setExecutor(executor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** The URL to use as {@code gemini.api.url}. */
+  public String generateUrl() {
+    return baseUrl() + ":generateContent";
+  }
+
+  /** The URL to use as {@code gemini.api.stream-url}. */
+  public String streamUrl() {
+    return baseUrl() + ":streamGenerateContent?alt=sse";
+  }
+
+  public long requests() {
+    return requests.sum();
+  }
+
+  public long succeeded() {
+    return succeeded.sum();
+  }
+
+  public long serverErrors() {
+    return serverErrors.sum();
+  }
+
+  public long rateLimited() {
+    return rateLimited.sum();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private String baseUrl() {
+    return "http://localhost:" + server.getAddress().getPort() + "/v1beta/models/fake-gemini";
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      requests.increment();
+      try (InputStream body = exchange.getRequestBody()) {
+        body.readAllBytes();
+      }
+      Duration delay = latency.sample();
+      double failure = ThreadLocalRandom.current().nextDouble();
+      if (failure < rateLimitRate) {
+        rateLimited.increment();
+        sleep(delay);
+        sendError(exchange, 429, "RESOURCE_EXHAUSTED");
+      } else if (failure < rateLimitRate + errorRate) {
+        serverErrors.increment();
+        sleep(delay);
+        sendError(exchange, 500, "INTERNAL");
+      } else {
+        String answer = answers.get((int) (nextAnswer.getAndIncrement() % answers.size()));
+        if (exchange.getRequestURI().getPath().endsWith(":streamGenerateContent")) {
+          stream(exchange, answer, delay);
+        } else {
+          sleep(delay);
+          send(exchange, 200, "application/json", envelope(answer));
+        }
+        succeeded.increment();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // The latency is spread over the chunks, so the first section arrives before the last one
+  private void stream(HttpExchange exchange, String answer, Duration delay)
+      throws IOException, InterruptedException {
+    exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+    exchange.sendResponseHeaders(200, 0);
+    OutputStream out = exchange.getResponseBody();
+    int chunkLength = (answer.length() + streamChunks - 1) / streamChunks;
+    Duration chunkDelay = delay.dividedBy(streamChunks);
+    for (int start = 0; start < answer.length(); start += chunkLength) {
+      sleep(chunkDelay);
+      String chunk = answer.substring(start, Math.min(answer.length(), start + chunkLength));
+      out.write(("data: " + envelope(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+      out.flush();
+    }
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String reason)
+      throws IOException {
+    ObjectNode error = OBJECT_MAPPER.createObjectNode();
+    error
+        .putObject("error")
+        .put("code", status)
+        .put("message", "Injected by FakeGeminiServer")
+        .put("status", reason);
+    send(exchange, status, "application/json", OBJECT_MAPPER.writeValueAsString(error));
+  }
+
+  private static void send(HttpExchange exchange, int status, String contentType, String body)
+      throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, bytes.length);
+    exchange.getResponseBody().write(bytes);
+  }
+
+  private static String envelope(String text) throws IOException {
+    ObjectNode root = OBJECT_MAPPER.createObjectNode();
+    ObjectNode candidate = root.putArray("candidates").addObject();
+    ObjectNode content = candidate.putObject("content");
+    content.putArray("parts").addObject().put("text", text);
+    content.put("role", "model");
+    candidate.put("finishReason", "STOP");
+    root.put("modelVersion", "fake-gemini");
+    return OBJECT_MAPPER.writeValueAsString(root);
+  }
+
+  private static void sleep(Duration delay) throws InterruptedException {
+    if (!delay.isZero() && !delay.isNegative()) {
+      Thread.sleep(delay);
+    }
+  }
+
+  private static String defaultAnswer() {
+    return """
+        ```json
+        {
+          "analysis": {
+            "overall": "A steady session at a sustainable effort with a strong finish.",
+            "pace": "Pace was consistent throughout.",
+            "heartRate": "Heart rate stayed mostly in zone 3.",
+            "caloriesBurned": "Calories are in line with the duration."
+          },
+          "improvements": [
+            {"area": "Pacing", "recommendation": "Start slightly slower to finish stronger."}
+          ],
+          "suggestions": [
+            {"workout": "Tempo run", "description": "20 minutes at a comfortably hard effort."}
+          ],
+          "safety": ["Hydrate before and after the session."]
+        }
+        ```""";
+  }
+
+  /** Samples the simulated model latency of one request. */
+  @FunctionalInterface
+  public interface Latency {
+    Duration sample();
+
+    static Latency fixed(Duration latency) {
+      return () -> latency;
+    }
+
+    static Latency uniform(Duration min, Duration max) {
+      return () ->
+          Duration.ofNanos(ThreadLocalRandom.current().nextLong(min.toNanos(), max.toNanos() + 1));
+    }
+
+    /** Long-tailed like real model latencies: half the requests take less than {@code median}. */
+    static Latency logNormal(Duration median, double sigma) {
+      return () ->
+          Duration.ofNanos(
+              (long)
+                  (median.toNanos()
+                      * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+    }
+  }
+
+  public static final class Builder {
+    private Latency latency = Latency.fixed(Duration.ZERO);
+    private double errorRate;
+    private double rateLimitRate;
+    private final List<String> answers = new ArrayList<>();
+    private int streamChunks = 4;
+    private int port;
+
+    private Builder() {}
+
+    public Builder latency(Latency latency) {
+      this.latency = latency;
+      return this;
+    }
+
+    /** Share of requests, from 0 to 1, answered with 500. */
+    public Builder errorRate(double errorRate) {
+      this.errorRate = errorRate;
+      return this;
+    }
+
+    /** Share of requests, from 0 to 1, answered with 429. */
+    public Builder rateLimitRate(double rateLimitRate) {
+      this.rateLimitRate = rateLimitRate;
+      return this;
+    }
+
+    /** Adds a canned analysis text (the model's answer, fenced or not) to the rotation. */
+    public Builder answer(String answer) {
+      this.answers.add(answer);
+      return this;
+    }
+
+    public Builder streamChunks(int streamChunks) {
+      this.streamChunks = streamChunks;
+      return this;
+    }
+
+    /** Port to listen on; 0, the default, picks a free one. */
+    public Builder port(int port) {
+      this.port = port;
+      return this;
+    }
+
+    public FakeGeminiServer start() throws IOException {
+      return new FakeGeminiServer(this);
+    }
+  }
+}
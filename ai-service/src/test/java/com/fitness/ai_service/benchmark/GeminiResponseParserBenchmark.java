@@ -0,0 +1,159 @@
+package com.fitness.ai_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fitness.ai_service.client.gemini.GeminiResponseParser;
+import com.fitness.ai_service.dto.ActivityObject;
+import com.fitness.ai_service.model.Recommendation;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the single-pass GeminiResponseParser with the previous tree-based parsing on a typical
+ * generateContent response, with the analysis fenced in ```json and without a fence. The main
+ * method checks that both produce the same recommendation and runs with the GC profiler, whose
+ * {@code gc.alloc.rate.norm} column is the number of bytes allocated per parsed response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeminiResponseParserBenchmark {
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final LegacyGeminiResponseParser legacyParser =
+      new LegacyGeminiResponseParser(objectMapper);
+  private final GeminiResponseParser singlePassParser = new GeminiResponseParser(objectMapper);
+
+  @Param({"true", "false"})
+  public boolean fenced;
+
+  private ActivityObject activity;
+  private String response;
+
+  @Setup
+  public void setUp() throws Exception {
+    activity = MessageFormatBenchmark.sampleActivity();
+    response = sampleResponse(objectMapper, fenced);
+  }
+
+  @Benchmark
+  public Recommendation legacy() throws Exception {
+    return legacyParser.parse(response, activity);
+  }
+
+  @Benchmark
+  public Recommendation singlePass() throws Exception {
+    return singlePassParser.parseAnalysis(singlePassParser.extractText(response), activity);
+  }
+
+  // Shaped like a real answer: the analysis text plus candidate metadata and usage counts
+  static String sampleResponse(ObjectMapper objectMapper, boolean fenced) throws Exception {
+    ObjectNode analysis = objectMapper.createObjectNode();
+    ObjectNode overview = analysis.putObject("analysis");
+    overview.put(
+        "overall",
+        "A steady 45 minute run at an average pace of 5:21 per km. Heart rate stayed mostly in"
+            + " zone 3 with a late climb to 178 bpm on the final hill, which suggests the effort"
+            + " was sustainable for most of the session but drifted above threshold at the end.");
+    overview.put("pace", "Pace was consistent within 10 seconds per km across the first 7 km.");
+    overview.put("heartRate", "Average 152 bpm; maximum 178 bpm during the last kilometre.");
+    overview.put("caloriesBurned", "520 kcal is in line with the distance and body weight.");
+    ArrayNode improvements = analysis.putArray("improvements");
+    for (String area : new String[] {"Pacing", "Cadence", "Recovery"}) {
+      improvements
+          .addObject()
+          .put("area", area)
+          .put(
+              "recommendation",
+              area
+                  + ": keep the first half 5 seconds per km slower and hold 170 steps per"
+                  + " minute so heart rate stays below 165 bpm until the final kilometre.");
+    }
+    ArrayNode suggestions = analysis.putArray("suggestions");
+    for (String workout : new String[] {"Tempo run", "Hill repeats", "Easy recovery run"}) {
+      suggestions
+          .addObject()
+          .put("workout", workout)
+          .put(
+              "description",
+              workout
+                  + ": 10 minute warm-up, main set at controlled effort, 10 minute"
+                  + " cool-down. Focus on relaxed shoulders and a quick, light stride.");
+    }
+    ArrayNode safety = analysis.putArray("safety");
+    safety.add("Hydrate before and after runs longer than 40 minutes.");
+    safety.add("Reduce intensity if heart rate stays above 175 bpm.");
+    safety.add("Wear reflective gear when running before sunrise.");
+
+    String text = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(analysis);
+    if (fenced) {
+      text = "```json\n" + text + "\n```";
+    }
+
+    ObjectNode root = objectMapper.createObjectNode();
+    ObjectNode candidate = root.putArray("candidates").addObject();
+    ObjectNode content = candidate.putObject("content");
+    content.putArray("parts").addObject().put("text", text);
+    content.put("role", "model");
+    candidate.put("finishReason", "STOP");
+    candidate.put("avgLogprobs", -0.21);
+    ArrayNode ratings = candidate.putArray("safetyRatings");
+    for (String category :
+        new String[] {
+          "HARM_CATEGORY_HATE_SPEECH",
+          "HARM_CATEGORY_DANGEROUS_CONTENT",
+          "HARM_CATEGORY_HARASSMENT",
+          "HARM_CATEGORY_SEXUALLY_EXPLICIT"
+        }) {
+      ratings.addObject().put("category", category).put("probability", "NEGLIGIBLE");
+    }
+    ObjectNode usage = root.putObject("usageMetadata");
+    usage.put("promptTokenCount", 412);
+    usage.put("candidatesTokenCount", 618);
+    usage.put("totalTokenCount", 1030);
+    root.put("modelVersion", "gemini-2.0-flash");
+    root.put("responseId", "k3T0Z8uNKt2p1MkP9q6GgAo");
+    return objectMapper.writeValueAsString(root);
+  }
+
+  public static void main(String[] args) throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper();
+    LegacyGeminiResponseParser legacyParser = new LegacyGeminiResponseParser(objectMapper);
+    GeminiResponseParser singlePassParser = new GeminiResponseParser(objectMapper);
+    ActivityObject activity = MessageFormatBenchmark.sampleActivity();
+    for (boolean fenced : new boolean[] {true, false}) {
+      String response = sampleResponse(objectMapper, fenced);
+      Recommendation expected = legacyParser.parse(response, activity);
+      Recommendation actual =
+          singlePassParser.parseAnalysis(singlePassParser.extractText(response), activity);
+      if (!expected.equals(actual)) {
+        throw new IllegalStateException(
+            "Parsers disagree (fenced=" + fenced + "): " + expected + " vs " + actual);
+      }
+      System.out.printf("response bytes (fenced=%b): %d%n", fenced, response.length());
+    }
+
+    new Runner(
+            new OptionsBuilder()
+                .include(GeminiResponseParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}
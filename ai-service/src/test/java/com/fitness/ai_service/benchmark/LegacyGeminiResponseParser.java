@@ -0,0 +1,183 @@
+package com.fitness.ai_service.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.ai_service.dto.ActivityObject;
+import com.fitness.ai_service.model.Recommendation;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The tree-based parsing that AICallerService used before GeminiResponseParser, kept verbatim as
+ * the baseline for GeminiResponseParserBenchmark.
+ */
+@Slf4j
+class LegacyGeminiResponseParser {
+  private final ObjectMapper objectMapper;
+
+  LegacyGeminiResponseParser(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  Recommendation parse(String geminiResponse, ActivityObject activity)
+      throws JsonProcessingException {
+    String jsonContent = extractJsonFromMarkdown(extractText(geminiResponse));
+    return toRecommendation(objectMapper.readTree(jsonContent), activity);
+  }
+
+  private String extractText(String geminiResponse) throws JsonProcessingException {
+    JsonNode root = objectMapper.readTree(geminiResponse);
+    JsonNode candidates = root.get("candidates");
+
+    if (candidates != null && candidates.isArray() && candidates.size() > 0) {
+      JsonNode content = candidates.get(0).get("content");
+      JsonNode parts = content.get("parts");
+
+      if (parts != null && parts.isArray() && parts.size() > 0) {
+        return parts.get(0).get("text").asText();
+      }
+    }
+
+    throw new IllegalStateException("Invalid Gemini response format");
+  }
+
+  private Recommendation toRecommendation(JsonNode analysisData, ActivityObject activity) {
+    return Recommendation.builder()
+        .activityId(activity.getId())
+        .keycloakId(activity.getKeycloakId())
+        .type(activity.getType())
+        .recommendation(extractRecommendation(analysisData))
+        .improvements(extractImprovements(analysisData))
+        .suggestions(extractSuggestions(analysisData))
+        .safety(extractSafety(analysisData))
+        .build();
+  }
+
+  private String extractJsonFromMarkdown(String text) {
+    // Remove markdown code block markers
+    String cleaned = text.trim();
+
+    // Check if it starts with ```json and ends with ```
+    if (cleaned.startsWith("```json")) {
+      cleaned = cleaned.substring(7); // Remove ```json
+    } else if (cleaned.startsWith("```")) {
+      cleaned = cleaned.substring(3); // Remove ```
+    }
+
+    if (cleaned.endsWith("```")) {
+      cleaned = cleaned.substring(0, cleaned.length() - 3); // Remove trailing ```
+    }
+
+    return cleaned.trim();
+  }
+
+  private String extractRecommendation(JsonNode analysisData) {
+    try {
+      JsonNode analysis = analysisData.get("analysis");
+      if (analysis != null && analysis.has("overall")) {
+        String recommendation = analysis.get("overall").asText();
+        return recommendation != null && !recommendation.trim().isEmpty()
+            ? recommendation
+            : "No detailed analysis provided";
+      }
+    } catch (Exception e) {
+      log.warn("Failed to extract recommendation: {}", e.getMessage());
+    }
+    return "No detailed analysis provided";
+  }
+
+  private List<String> extractImprovements(JsonNode analysisData) {
+    try {
+      JsonNode improvements = analysisData.get("improvements");
+      List<String> result = extractStringList(improvements, "recommendation");
+
+      if (result == null || result.isEmpty()) {
+        return List.of("No improvements suggested");
+      }
+
+      // Filter out empty strings
+      List<String> filtered =
+          result.stream().filter(s -> s != null && !s.trim().isEmpty()).toList();
+
+      return filtered.isEmpty() ? List.of("No improvements suggested") : filtered;
+
+    } catch (Exception e) {
+      log.warn("Failed to extract improvements: {}", e.getMessage());
+      return List.of("No improvements suggested");
+    }
+  }
+
+  private List<String> extractSuggestions(JsonNode analysisData) {
+    try {
+      JsonNode suggestions = analysisData.get("suggestions");
+      List<String> result = extractStringList(suggestions, "description");
+
+      if (result == null || result.isEmpty()) {
+        return List.of("No workout suggestions provided");
+      }
+
+      // Filter out empty strings
+      List<String> filtered =
+          result.stream().filter(s -> s != null && !s.trim().isEmpty()).toList();
+
+      return filtered.isEmpty() ? List.of("No workout suggestions provided") : filtered;
+
+    } catch (Exception e) {
+      log.warn("Failed to extract suggestions: {}", e.getMessage());
+      return List.of("No workout suggestions provided");
+    }
+  }
+
+  private List<String> extractSafety(JsonNode analysisData) {
+    try {
+      JsonNode safety = analysisData.get("safety");
+      List<String> result = extractStringArray(safety);
+
+      if (result == null || result.isEmpty()) {
+        return List.of("Follow general safety guidelines for your activity type");
+      }
+
+      // Filter out empty strings
+      List<String> filtered =
+          result.stream().filter(s -> s != null && !s.trim().isEmpty()).toList();
+
+      return filtered.isEmpty()
+          ? List.of("Follow general safety guidelines for your activity type")
+          : filtered;
+
+    } catch (Exception e) {
+      log.warn("Failed to extract safety guidelines: {}", e.getMessage());
+      return List.of("Follow general safety guidelines for your activity type");
+    }
+  }
+
+  private List<String> extractStringList(JsonNode arrayNode, String fieldName) {
+    List<String> result = new ArrayList<>();
+    if (arrayNode != null && arrayNode.isArray()) {
+      for (JsonNode item : arrayNode) {
+        if (item.has(fieldName)) {
+          String value = item.get(fieldName).asText();
+          if (value != null && !value.trim().isEmpty()) {
+            result.add(value);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private List<String> extractStringArray(JsonNode arrayNode) {
+    List<String> result = new ArrayList<>();
+    if (arrayNode != null && arrayNode.isArray()) {
+      for (JsonNode item : arrayNode) {
+        String value = item.asText();
+        if (value != null && !value.trim().isEmpty()) {
+          result.add(value);
+        }
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,120 @@
+package com.fitness.ai_service.benchmark;
+
+import com.fitness.ai_service.config.CborMessageConverter;
+import com.fitness.ai_service.dto.ActivityObject;
+import com.fitness.ai_service.dto.ActivityObjectType;
+import com.fitness.ai_service.dto.SampleSeriesSummary;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * Compares the JSON and CBOR activity message converters: bytes per message (printed before the
+ * run) and encode/decode throughput. Run the main method from the test classpath, e.g. from the
+ * IDE; add {@code -prof gc} via the JMH command line for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageFormatBenchmark {
+
+  private final MessageConverter jsonConverter = new Jackson2JsonMessageConverter();
+  private final MessageConverter cborConverter = new CborMessageConverter();
+
+  private ActivityObject activity;
+  private Message jsonMessage;
+  private Message cborMessage;
+
+  @Setup
+  public void setUp() {
+    activity = sampleActivity();
+    jsonMessage = jsonConverter.toMessage(activity, new MessageProperties());
+    cborMessage = cborConverter.toMessage(activity, new MessageProperties());
+  }
+
+  @Benchmark
+  public Message encodeJson() {
+    return jsonConverter.toMessage(activity, new MessageProperties());
+  }
+
+  @Benchmark
+  public Message encodeCbor() {
+    return cborConverter.toMessage(activity, new MessageProperties());
+  }
+
+  @Benchmark
+  public Object decodeJson() {
+    return jsonConverter.fromMessage(jsonMessage);
+  }
+
+  @Benchmark
+  public Object decodeCbor() {
+    return cborConverter.fromMessage(cborMessage);
+  }
+
+  static ActivityObject sampleActivity() {
+    ActivityObject activity = new ActivityObject();
+    activity.setId("66f1c0d2a4b5c6d7e8f90123");
+    activity.setKeycloakId("0b6c1f8e-3f5d-4a7e-9a61-2c4d8e9f1a2b");
+    activity.setType(ActivityObjectType.RUNNING);
+    activity.setDuration(45);
+    activity.setCaloriesBurned(520);
+    activity.setStartTime(LocalDateTime.of(2025, 3, 14, 7, 30));
+    activity.setCreatedAt(LocalDateTime.of(2025, 3, 14, 8, 20, 11));
+    activity.setUpdatedAt(LocalDateTime.of(2025, 3, 14, 8, 20, 11));
+
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("distance", 8.4);
+    metrics.put("averagePace", "5:21");
+    metrics.put("elevationGain", 112);
+    metrics.put("averageHeartRate", 152);
+    metrics.put("maxHeartRate", 178);
+    activity.setAdditionalMetrics(metrics);
+
+    SampleSeriesSummary heartRate = new SampleSeriesSummary();
+    heartRate.setCount(2700);
+    heartRate.setMin(96);
+    heartRate.setMax(178);
+    heartRate.setMean(152.3);
+    heartRate.setEndOffsetMillis(2_699_000);
+    heartRate.setChunks(3);
+    activity.setSampleSummaries(Map.of("heartRate", heartRate));
+    return activity;
+  }
+
+  public static void main(String[] args) throws Exception {
+    MessageFormatBenchmark benchmark = new MessageFormatBenchmark();
+    benchmark.setUp();
+    System.out.printf(
+        "bytes/message: json=%d cbor=%d%n",
+        benchmark.jsonMessage.getBody().length, benchmark.cborMessage.getBody().length);
+    ActivityObject roundTrip =
+        (ActivityObject) benchmark.cborConverter.fromMessage(benchmark.cborMessage);
+    if (!benchmark.activity.equals(roundTrip)) {
+      throw new IllegalStateException("CBOR round trip changed the activity: " + roundTrip);
+    }
+
+    new Runner(new OptionsBuilder().include(MessageFormatBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
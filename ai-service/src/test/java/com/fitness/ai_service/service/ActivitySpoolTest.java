@@ -0,0 +1,169 @@
+package com.fitness.ai_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fitness.ai_service.dto.ActivityObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class ActivitySpoolTest {
+  private static final int RECORD_HEADER = 8;
+
+  @TempDir Path directory;
+
+  @Test
+  void readsAndCommitsAppendedActivitiesInOrder() throws IOException {
+    ActivitySpool spool = open(DataSize.ofMegabytes(1));
+    for (String id : List.of("a1", "a2", "a3")) {
+      assertThat(spool.append(activity(id))).isTrue();
+    }
+
+    List<ActivitySpool.Entry> entries = spool.read(10);
+    assertThat(ids(entries)).containsExactly("a1", "a2", "a3");
+    // Reading does not commit
+    assertThat(spool.read(10)).hasSize(3);
+
+    spool.commit(entries.get(1).nextOffset());
+    assertThat(spool.pending()).isEqualTo(1);
+    assertThat(ids(spool.read(10))).containsExactly("a3");
+
+    spool.commit(entries.get(2).nextOffset());
+    assertThat(spool.pending()).isZero();
+    assertThat(spool.read(10)).isEmpty();
+
+    // The cleared spool is reused from the start
+    assertThat(spool.append(activity("a4"))).isTrue();
+    assertThat(ids(spool.read(10))).containsExactly("a4");
+  }
+
+  @Test
+  void reopenResumesAfterTheCheckpoint() throws IOException {
+    ActivitySpool spool = open(DataSize.ofMegabytes(1));
+    for (String id : List.of("a1", "a2", "a3")) {
+      spool.append(activity(id));
+    }
+    spool.commit(spool.read(1).get(0).nextOffset());
+    spool.close();
+
+    ActivitySpool reopened = open(DataSize.ofMegabytes(1));
+    assertThat(reopened.pending()).isEqualTo(2);
+    assertThat(ids(reopened.read(10))).containsExactly("a2", "a3");
+  }
+
+  @Test
+  void reopenAfterEverythingWasCommittedFindsNothing() throws IOException {
+    ActivitySpool spool = open(DataSize.ofMegabytes(1));
+    spool.append(activity("a1"));
+    spool.append(activity("a2"));
+    spool.commit(spool.read(10).get(1).nextOffset());
+    spool.close();
+
+    // Cleared records are zeroed, so they are not recovered behind the reset checkpoint
+    ActivitySpool reopened = open(DataSize.ofMegabytes(1));
+    assertThat(reopened.pending()).isZero();
+    assertThat(reopened.read(10)).isEmpty();
+  }
+
+  @Test
+  void reopenStopsAtACorruptedLastRecord() throws IOException {
+    ActivitySpool spool = open(DataSize.ofMegabytes(1));
+    spool.append(activity("a1"));
+    spool.append(activity("a2"));
+    long lastRecord = spool.read(10).get(0).nextOffset();
+    spool.close();
+    flipByte(lastRecord + RECORD_HEADER + 2);
+
+    ActivitySpool reopened = open(DataSize.ofMegabytes(1));
+    assertThat(reopened.pending()).isEqualTo(1);
+    assertThat(ids(reopened.read(10))).containsExactly("a1");
+  }
+
+  @Test
+  void reopenStopsAtATruncatedLastRecordAndOverwritesIt() throws IOException {
+    ActivitySpool spool = open(DataSize.ofMegabytes(1));
+    spool.append(activity("a1"));
+    spool.append(activity("a2"));
+    List<ActivitySpool.Entry> entries = spool.read(10);
+    long lastRecord = entries.get(0).nextOffset();
+    long end = entries.get(1).nextOffset();
+    spool.close();
+    // A crash part way through writing the payload leaves its tail unwritten
+    long payloadMiddle = (lastRecord + RECORD_HEADER + end) / 2;
+    write(payloadMiddle, new byte[(int) (end - payloadMiddle)]);
+
+    ActivitySpool reopened = open(DataSize.ofMegabytes(1));
+    assertThat(reopened.pending()).isEqualTo(1);
+    reopened.append(activity("a3"));
+    reopened.close();
+
+    ActivitySpool again = open(DataSize.ofMegabytes(1));
+    assertThat(ids(again.read(10))).containsExactly("a1", "a3");
+  }
+
+  @Test
+  void appendReturnsFalseOnceTheSpoolIsFull() throws IOException {
+    ActivitySpool spool = open(DataSize.ofBytes(1024));
+    int appended = 0;
+    while (spool.append(activity("a" + appended))) {
+      appended++;
+    }
+
+    assertThat(appended).isPositive();
+    assertThat(spool.pending()).isEqualTo(appended);
+    assertThat(spool.read(Integer.MAX_VALUE)).hasSize(appended);
+  }
+
+  private ActivitySpool open(DataSize capacity) throws IOException {
+    ActivitySpool spool =
+        new ActivitySpool(
+            new ObjectMapper().registerModule(new JavaTimeModule()),
+            new SimpleMeterRegistry(),
+            true,
+            path(),
+            capacity);
+    spool.open();
+    return spool;
+  }
+
+  private Path path() {
+    return directory.resolve("activity-spool.dat");
+  }
+
+  private void flipByte(long offset) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(path(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(1);
+      channel.read(buffer, offset);
+      buffer.put(0, (byte) (buffer.get(0) ^ 0xFF));
+      buffer.rewind();
+      channel.write(buffer, offset);
+    }
+  }
+
+  private void write(long offset, byte[] bytes) throws IOException {
+    try (FileChannel channel = FileChannel.open(path(), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(bytes), offset);
+    }
+  }
+
+  private static ActivityObject activity(String id) {
+    ActivityObject activity = new ActivityObject();
+    activity.setId(id);
+    activity.setKeycloakId("user-1");
+    return activity;
+  }
+
+  private static List<String> ids(List<ActivitySpool.Entry> entries) {
+    return entries.stream().map(entry -> entry.activity().getId()).toList();
+  }
+}
@@ -0,0 +1,47 @@
+package com.fitness.ai_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fitness.ai_service.client.gemini.GeminiConcurrencyLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+class FairActivitySchedulerTest {
+
+  // Work that fails before going async releases its slot on the thread that started it; the next
+  // turns must then be started by the dispatch loop rather than by nested calls
+  @Test
+  void queuedTasksFailingImmediatelyDoNotRecurse() {
+    FairActivityScheduler scheduler =
+        new FairActivityScheduler(
+            new SimpleMeterRegistry(),
+            new GeminiConcurrencyLimit(
+                new SimpleMeterRegistry(), false, 1, 1, 1, 0.7, Duration.ofSeconds(20)),
+            Duration.ofMinutes(2),
+            Duration.ofMinutes(30));
+    Disposable holder =
+        scheduler
+            .schedule(FairActivityScheduler.Lane.INTERACTIVE, "holder", Mono::never)
+            .subscribe();
+    int tasks = 5_000;
+    AtomicInteger failed = new AtomicInteger();
+    for (int i = 0; i < tasks; i++) {
+      scheduler
+          .schedule(
+              FairActivityScheduler.Lane.INTERACTIVE,
+              "user-" + (i % 50),
+              () -> Mono.error(new IllegalStateException("breaker open")))
+          .subscribe(value -> {}, error -> failed.incrementAndGet());
+    }
+    assertThat(scheduler.queued(FairActivityScheduler.Lane.INTERACTIVE)).isEqualTo(tasks);
+
+    holder.dispose();
+
+    assertThat(failed).hasValue(tasks);
+    assertThat(scheduler.queued(FairActivityScheduler.Lane.INTERACTIVE)).isZero();
+  }
+}
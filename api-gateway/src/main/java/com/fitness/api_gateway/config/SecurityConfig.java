@@ -1,18 +1,27 @@
 package com.fitness.api_gateway.config;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
   @Bean
-  public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+  public SecurityWebFilterChain springSecurityFilterChain(
+      ServerHttpSecurity http, @Value("${gateway.admin-role:admin}") String adminRole) {
     return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
         .authorizeExchange(
             exchange ->
@@ -21,9 +30,34 @@ public class SecurityConfig {
                     .permitAll() // Allow all OPTIONS requests
                     .pathMatchers("/api/users/register", "/actuator/health")
                     .permitAll()
+                    // Operator endpoints of the services, such as replaying parked activities
+                    .pathMatchers("/api/*/admin/**")
+                    .hasRole(adminRole)
                     .anyExchange()
                     .authenticated())
-        .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
+        .oauth2ResourceServer(
+            oauth2 ->
+                oauth2.jwt(
+                    jwt ->
+                        jwt.jwtAuthenticationConverter(
+                            new ReactiveJwtAuthenticationConverterAdapter(realmRolesConverter()))))
         .build();
   }
+
+  // Keycloak puts realm roles under realm_access.roles; they become ROLE_<role> authorities
+  private static JwtAuthenticationConverter realmRolesConverter() {
+    JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+    converter.setJwtGrantedAuthoritiesConverter(SecurityConfig::realmRoles);
+    return converter;
+  }
+
+  private static Collection<GrantedAuthority> realmRoles(Jwt jwt) {
+    Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
+    if (realmAccess == null || !(realmAccess.get("roles") instanceof Collection<?> roles)) {
+      return List.of();
+    }
+    return roles.stream()
+        .map(role -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + role))
+        .toList();
+  }
 }
@@ -1,5 +1,6 @@
 import { useState, useEffect, useCallback, useRef } from "react";
 import { authenticatedApiWithKeycloakId, authenticatedApi } from "../utils/api";
+import { subscribeToRecommendations } from "../utils/recommendationEvents";
 import {
   ensureTokenValid,
   keycloak,
@@ -11,6 +12,8 @@ import type {
   ActivityWithRecommendation,
 } from "../types/activity";
 
+const RELOAD_DELAY_MS = 1000;
+
 export const useActivities = () => {
   const [activities, setActivities] = useState<ActivityWithRecommendation[]>(
     []
@@ -18,18 +21,28 @@ export const useActivities = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
 
-  // Use refs to track polling state without causing re-renders
-  const pollingIntervalRef = useRef<number | null>(null);
+  // Use refs to track fetch state without causing re-renders
   const lastFetchTimeRef = useRef<number>(0);
   const isFirstLoadRef = useRef(true);
+  const activitiesRef = useRef<ActivityWithRecommendation[]>([]);
+  // Pushed recommendations, by activity id, until a fetch returns them itself. A fetch that was
+  // already in flight when one arrived would otherwise overwrite it.
+  const pushedRecommendationsRef = useRef(new Map<string, Recommendation>());
+  const reloadTimerRef = useRef<number | null>(null);
+  const fetchSequenceRef = useRef(0);
 
   const fetchActivitiesAndRecommendations = useCallback(
-    async (skipLoading = false) => {
+    async (skipLoading = false, force = false) => {
       const now = Date.now();
-      if (now - lastFetchTimeRef.current < 5000 && !isFirstLoadRef.current) {
+      if (
+        now - lastFetchTimeRef.current < 5000 &&
+        !isFirstLoadRef.current &&
+        !force
+      ) {
         return;
       }
       lastFetchTimeRef.current = now;
+      const sequence = ++fetchSequenceRef.current;
 
       if (!skipLoading) setLoading(true);
 
@@ -48,15 +61,20 @@ export const useActivities = () => {
           `/api/recommendations/getUserRecommendations/${keycloakId}`,
           token
         );
+        // A later fetch has started; its result is the newer one
+        if (sequence !== fetchSequenceRef.current) return;
 
         const recommendationsMap = new Map<string, Recommendation>();
         recommendationsData.forEach((rec) => {
           recommendationsMap.set(rec.activityId, rec);
+          pushedRecommendationsRef.current.delete(rec.activityId);
         });
 
         const activitiesWithRecommendations: ActivityWithRecommendation[] =
           activitiesData.map((activity) => {
-            const recommendation = recommendationsMap.get(activity.id);
+            const recommendation =
+              recommendationsMap.get(activity.id) ??
+              pushedRecommendationsRef.current.get(activity.id);
             return {
               ...activity,
               recommendation,
@@ -84,44 +102,70 @@ export const useActivities = () => {
     fetchActivitiesAndRecommendations();
   }, [fetchActivitiesAndRecommendations]);
 
-  const setupPolling = useCallback(() => {
-    if (pollingIntervalRef.current) {
-      clearInterval(pollingIntervalRef.current);
-    }
-
-    const hasLoadingRecommendations = activities.some(
-      (activity) => activity.recommendationStatus === "loading"
-    );
-
-    if (hasLoadingRecommendations && activities.length > 0) {
-      pollingIntervalRef.current = setInterval(() => {
-        fetchActivitiesAndRecommendations(true);
-      }, 10000); // 10 seconds
-    }
-  }, [activities, fetchActivitiesAndRecommendations]);
+  useEffect(() => {
+    activitiesRef.current = activities;
+  }, [activities]);
+
+  // A recommendation can arrive before the list has been reloaded with its activity. One forced
+  // reload is scheduled after it, so an import of many activities does not reload once per
+  // recommendation, and the pushed recommendation is merged into whatever that reload returns.
+  const applyRecommendation = useCallback(
+    (recommendation: Recommendation) => {
+      pushedRecommendationsRef.current.set(
+        recommendation.activityId,
+        recommendation
+      );
+      if (
+        !activitiesRef.current.some(
+          (activity) => activity.id === recommendation.activityId
+        )
+      ) {
+        if (reloadTimerRef.current === null) {
+          reloadTimerRef.current = window.setTimeout(() => {
+            reloadTimerRef.current = null;
+            fetchActivitiesAndRecommendations(true, true);
+          }, RELOAD_DELAY_MS);
+        }
+        return;
+      }
+      setActivities((current) =>
+        current.map((activity) =>
+          activity.id === recommendation.activityId
+            ? { ...activity, recommendation, recommendationStatus: "available" }
+            : activity
+        )
+      );
+    },
+    [fetchActivitiesAndRecommendations]
+  );
 
   // Initial fetch
   useEffect(() => {
     fetchActivitiesAndRecommendations();
-    return () => {
-      if (pollingIntervalRef.current) {
-        clearInterval(pollingIntervalRef.current);
-      }
-    };
   }, []);
 
-  // Setup polling when activities change
-  useEffect(() => {
-    if (!isFirstLoadRef.current) {
-      setupPolling();
-    }
-
-    return () => {
-      if (pollingIntervalRef.current) {
-        clearInterval(pollingIntervalRef.current);
+  useEffect(
+    () => () => {
+      if (reloadTimerRef.current !== null) {
+        window.clearTimeout(reloadTimerRef.current);
       }
-    };
-  }, [setupPolling]);
+    },
+    []
+  );
+
+  // Recommendations are pushed as they are saved instead of being polled for. Every (re)connect
+  // reloads once, to pick up any saved while the stream was not open.
+  useEffect(() => {
+    const keycloakId = getCurrentKeycloakId();
+    if (!keycloakId) return;
+
+    return subscribeToRecommendations(
+      keycloakId,
+      async () => ((await ensureTokenValid()) ? keycloak.token! : null),
+      applyRecommendation,
+      () => fetchActivitiesAndRecommendations(true, true)
+    );
+  }, [applyRecommendation, fetchActivitiesAndRecommendations]);
 
   return {
     activities,
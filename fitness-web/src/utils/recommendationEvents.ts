@@ -0,0 +1,86 @@
+import type { Recommendation } from "../types/activity";
+
+const API_BASE_URL =
+  import.meta.env.VITE_API_BASE_URL || "http://localhost:8080";
+
+const RECONNECT_DELAY_MS = 5000;
+
+// Subscribes to the user's "ready" events from ai-service. EventSource cannot send the bearer
+// token, so the stream is read with fetch. onOpen runs on every (re)connect, so the caller can
+// reload whatever it missed while disconnected. Returns a function that closes the subscription.
+export const subscribeToRecommendations = (
+  keycloakId: string,
+  getToken: () => Promise<string | null>,
+  onReady: (recommendation: Recommendation) => void,
+  onOpen: () => void
+): (() => void) => {
+  const controller = new AbortController();
+  let reconnectTimer: number | null = null;
+
+  const connect = async () => {
+    try {
+      const token = await getToken();
+      if (!token) throw new Error("Authentication required");
+
+      const response = await fetch(
+        `${API_BASE_URL}/api/recommendations/events/${keycloakId}`,
+        {
+          headers: {
+            Accept: "text/event-stream",
+            Authorization: `Bearer ${token}`,
+          },
+          signal: controller.signal,
+        }
+      );
+      if (!response.ok || !response.body) {
+        throw new Error(`HTTP ${response.status}`);
+      }
+      onOpen();
+
+      const reader = response.body
+        .pipeThrough(new TextDecoderStream())
+        .getReader();
+      let buffer = "";
+      for (;;) {
+        const { value, done } = await reader.read();
+        if (done) break;
+        buffer += value;
+        // Events are separated by a blank line
+        let boundary: number;
+        while ((boundary = buffer.indexOf("\n\n")) >= 0) {
+          handleEvent(buffer.slice(0, boundary), onReady);
+          buffer = buffer.slice(boundary + 2);
+        }
+      }
+    } catch (error) {
+      if (controller.signal.aborted) return;
+      console.error("Recommendation events disconnected:", error);
+    }
+    if (!controller.signal.aborted) {
+      reconnectTimer = window.setTimeout(connect, RECONNECT_DELAY_MS);
+    }
+  };
+
+  connect();
+
+  return () => {
+    controller.abort();
+    if (reconnectTimer) window.clearTimeout(reconnectTimer);
+  };
+};
+
+// Heartbeats are comment lines and carry no event name, so only "ready" events get through
+const handleEvent = (
+  block: string,
+  onReady: (recommendation: Recommendation) => void
+) => {
+  let event = "message";
+  const data: string[] = [];
+  block.split("\n").forEach((line) => {
+    if (line.startsWith("event:")) event = line.slice(6).trim();
+    else if (line.startsWith("data:")) data.push(line.slice(5).trimStart());
+  });
+  if (event === "ready" && data.length > 0) {
+    onReady(JSON.parse(data.join("\n")) as Recommendation);
+  }
+};